@@ -0,0 +1,147 @@
+package com.dexhonsa;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Joins the name-keyed monsterdata.csv into an {@link NpcStatsTable} built from
+ * monsters-complete.csv. Rows only fill in NPC IDs and names the table does not
+ * already have, so monsters-complete.csv stays authoritative. Used at build time
+ * by the dataset compiler; malformed rows are rejected rather than skipped.
+ *
+ * The file has no header. Columns are: name (with an optional "#variant"
+ * suffix), elemental weakness, elemental weakness percent, magic, stab, slash
+ * and crush defence, light, standard and heavy ranged defence, a comma
+ * separated ID list, free-text max hits and attack styles.
+ */
+final class MonsterDataParser {
+
+    private static final int COLUMNS = 13;
+    private static final int NAME = 0;
+    private static final int ELEMENTAL_TYPE = 1;
+    private static final int DEF_MAGIC = 3;
+    private static final int DEF_STAB = 4;
+    private static final int DEF_SLASH = 5;
+    private static final int DEF_CRUSH = 6;
+    private static final int DEF_RANGED_LIGHT = 7;
+    private static final int DEF_RANGED_STANDARD = 8;
+    private static final int DEF_RANGED_HEAVY = 9;
+    private static final int IDS = 10;
+    private static final int MAX_HIT = 11;
+    private static final int ATTACK_STYLE = 12;
+
+    private MonsterDataParser() {
+    }
+
+    /**
+     * Add every ID and name from the CSV that is missing from {@code table}
+     *
+     * @return the number of NPC IDs added
+     * @throws IllegalArgumentException if a row is malformed
+     */
+    static int join(Reader source, NpcStatsTable table) throws IOException {
+        CsvReader csv = new CsvReader(source);
+        int added = 0;
+        while (csv.nextRow()) {
+            if (csv.getFieldCount() == 1 && csv.isBlank(0)) {
+                continue;
+            }
+            if (csv.getFieldCount() != COLUMNS) {
+                throw malformed(csv, "expected " + COLUMNS + " columns but found " + csv.getFieldCount());
+            }
+
+            Weakness weakness = NpcCsvParser.determineWeakness(csv.containsIgnoreCase(ATTACK_STYLE, "magic"),
+                parseOptionalInt(csv, DEF_STAB),
+                parseOptionalInt(csv, DEF_SLASH),
+                parseOptionalInt(csv, DEF_CRUSH),
+                parseOptionalInt(csv, DEF_MAGIC),
+                parseOptionalInt(csv, DEF_RANGED_LIGHT),
+                parseOptionalInt(csv, DEF_RANGED_STANDARD),
+                parseOptionalInt(csv, DEF_RANGED_HEAVY),
+                elementalType(csv));
+            // Aggression is not recorded in this file
+            int record = NpcRecord.pack(parseMaxHit(csv.getString(MAX_HIT)), weakness, false);
+
+            for (String id : csv.getString(IDS).split(",")) {
+                if (id.trim().isEmpty()) {
+                    continue;
+                }
+                int npcId;
+                try {
+                    npcId = Integer.parseInt(id.trim());
+                } catch (NumberFormatException e) {
+                    throw malformed(csv, "invalid id '" + id + "'");
+                }
+                if (!NpcRecord.isPresent(table.get(npcId))) {
+                    table.put(npcId, record);
+                    added++;
+                }
+            }
+
+            String name = csv.getString(NAME);
+            if (!name.trim().isEmpty() && !NpcRecord.isPresent(table.getByName(name))) {
+                table.putName(name, record);
+            }
+        }
+        table.trim();
+        return added;
+    }
+
+    /**
+     * The highest hit mentioned in a free-text max hit such as
+     * "66 (Melee),96 (with explosion)" or "17x2 (default)", 0 if none
+     */
+    static int parseMaxHit(String text) {
+        int max = 0;
+        boolean leading = true;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (leading && c >= '0' && c <= '9') {
+                // Only the number at the start of each entry is a hit; the rest are annotations
+                int value = 0;
+                while (i < text.length() && text.charAt(i) >= '0' && text.charAt(i) <= '9') {
+                    value = Math.min(value * 10 + text.charAt(i) - '0', 0xFFFF);
+                    i++;
+                }
+                max = Math.max(max, value);
+                leading = false;
+                i--;
+            } else if (c == ',' || c == '>') {
+                // Entries are separated by commas or <br> tags
+                leading = true;
+            } else if (!Character.isWhitespace(c)) {
+                leading = false;
+            }
+        }
+        return max;
+    }
+
+    private static int elementalType(CsvReader csv) {
+        // Same codes as monsters-complete.csv's elemental_weakness_type
+        if (csv.equalsIgnoreCase(ELEMENTAL_TYPE, "air")) {
+            return 1;
+        } else if (csv.equalsIgnoreCase(ELEMENTAL_TYPE, "water")) {
+            return 2;
+        } else if (csv.equalsIgnoreCase(ELEMENTAL_TYPE, "earth")) {
+            return 3;
+        } else if (csv.equalsIgnoreCase(ELEMENTAL_TYPE, "fire")) {
+            return 4;
+        }
+        return 0;
+    }
+
+    private static int parseOptionalInt(CsvReader csv, int field) {
+        if (csv.isBlank(field)) {
+            return 0;
+        }
+        try {
+            return csv.getInt(field);
+        } catch (NumberFormatException e) {
+            throw malformed(csv, "invalid number '" + csv.getString(field) + "' in column " + (field + 1));
+        }
+    }
+
+    private static IllegalArgumentException malformed(CsvReader csv, String reason) {
+        return new IllegalArgumentException("Malformed monster data at line " + csv.getLine() + ": " + reason);
+    }
+}
@@ -0,0 +1,65 @@
+package com.dexhonsa;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Build-time entry point that compiles monsters-complete.csv, joined with the
+ * name-keyed monsterdata.csv for IDs it lacks, into the binary dataset loaded
+ * by {@link NPCDataLoader}, and every column of monsters-complete.csv into the
+ * columnar file read by {@link NpcStatsStore}. Any malformed row fails the build.
+ *
+ * Usage: NpcDataCompiler &lt;monsters-complete.csv&gt; &lt;monsterdata.csv&gt; &lt;npc-data.bin&gt; &lt;npc-stats.bin&gt;
+ */
+public final class NpcDataCompiler {
+
+    private NpcDataCompiler() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 4) {
+            throw new IllegalArgumentException("Usage: NpcDataCompiler <csv> <monsterdata-csv> <output> <stats-output>");
+        }
+
+        Path csv = Paths.get(args[0]);
+        Path monsterData = Paths.get(args[1]);
+        Path output = Paths.get(args[2]);
+        Path statsOutput = Paths.get(args[3]);
+
+        NpcStatsTable table;
+        try (Reader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            table = NpcCsvParser.parse(reader);
+        }
+        int joined;
+        try (Reader reader = Files.newBufferedReader(monsterData, StandardCharsets.UTF_8)) {
+            joined = MonsterDataParser.join(reader, table);
+        }
+
+        Files.createDirectories(output.getParent());
+        try (OutputStream file = Files.newOutputStream(output);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            table.write(out);
+        }
+
+        System.out.println("Compiled " + table.size() + " NPC entries (" + joined + " from " + monsterData.getFileName()
+            + ") and " + table.nameCount() + " names from " + csv.getFileName() + " into " + output.getFileName());
+
+        int rows;
+        Files.createDirectories(statsOutput.getParent());
+        try (Reader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8);
+             OutputStream file = Files.newOutputStream(statsOutput);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            rows = NpcStatsStoreWriter.write(reader, out);
+        }
+
+        System.out.println("Compiled " + rows + " rows of " + NpcStat.values().length + " stat columns from "
+            + csv.getFileName() + " into " + statsOutput.getFileName());
+    }
+}
@@ -0,0 +1,256 @@
+package com.dexhonsa;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles every column of monsters-complete.csv into the columnar file read
+ * by {@link NpcStatsStore}. Used at build time by the dataset compiler;
+ * malformed rows fail the build.
+ *
+ * <pre>
+ * int    magic "NPCS", version
+ * int    slot count, then one unsigned short per NPC ID slot: row + 1, 0 if absent
+ * int    row count
+ * int    column count, then per column: UTF header name, int offset, int length
+ * ...    column sections, offsets counted from the start of the file
+ * </pre>
+ *
+ * Integer columns are stored as the narrowest of byte, short or int that
+ * holds every value, with the type's minimum marking blanks. Boolean columns
+ * are packed 64 rows to a long. Text columns are a dictionary of distinct
+ * values followed by an integer column of codes, 0 meaning blank.
+ */
+final class NpcStatsStoreWriter {
+
+    static final int BLANK = Integer.MIN_VALUE;
+
+    private NpcStatsStoreWriter() {
+    }
+
+    /**
+     * Parse the whole CSV and write it in columnar form
+     *
+     * @return the number of rows written
+     * @throws IllegalArgumentException if a row is malformed or an NPC id is repeated
+     */
+    static int write(Reader source, DataOutputStream out) throws IOException {
+        CsvReader csv = new CsvReader(source);
+        if (!csv.nextRow()) {
+            throw new IllegalArgumentException("NPC data is empty");
+        }
+
+        int fieldCount = csv.getFieldCount();
+        int idField = find(csv, "id");
+        if (idField < 0) {
+            throw new IllegalArgumentException("NPC data is missing column 'id'");
+        }
+        NpcStat[] stats = NpcStat.values();
+        int[] fields = new int[stats.length];
+        for (NpcStat stat : stats) {
+            fields[stat.ordinal()] = find(csv, stat.getColumn());
+        }
+
+        int[] rowOf = new int[16384];
+        int[][] values = new int[stats.length][1024];
+        // Dictionary of each text column, indexed by ordinal; other columns leave theirs empty
+        List<Map<String, Integer>> codes = new ArrayList<>(stats.length);
+        for (int i = 0; i < stats.length; i++) {
+            codes.add(new HashMap<>());
+        }
+
+        int rows = 0;
+        int slots = 0;
+        while (csv.nextRow()) {
+            if (csv.getFieldCount() == 1 && csv.isBlank(0)) {
+                continue;
+            }
+            if (csv.getFieldCount() != fieldCount) {
+                throw malformed(csv, "expected " + fieldCount + " columns but found " + csv.getFieldCount());
+            }
+
+            int npcId = parseInt(csv, idField, "id");
+            if (npcId < 0) {
+                throw malformed(csv, "negative NPC id " + npcId);
+            }
+            if (npcId >= rowOf.length) {
+                rowOf = Arrays.copyOf(rowOf, Math.max(npcId + 1, rowOf.length * 2));
+            }
+            if (rowOf[npcId] != 0) {
+                throw malformed(csv, "duplicate NPC id " + npcId);
+            }
+            if (rows == Character.MAX_VALUE - 1) {
+                throw malformed(csv, "too many rows");
+            }
+            rowOf[npcId] = rows + 1;
+            slots = Math.max(slots, npcId + 1);
+
+            for (NpcStat stat : stats) {
+                int field = fields[stat.ordinal()];
+                if (field < 0) {
+                    continue;
+                }
+                int[] column = values[stat.ordinal()];
+                if (rows == column.length) {
+                    column = values[stat.ordinal()] = Arrays.copyOf(column, rows * 2);
+                }
+                switch (stat.getKind()) {
+                    case INT:
+                        column[rows] = csv.isBlank(field) ? BLANK : parseInt(csv, field, stat.getColumn());
+                        break;
+                    case BOOLEAN:
+                        column[rows] = csv.equalsIgnoreCase(field, "true") ? 1 : 0;
+                        break;
+                    case TEXT:
+                        Map<String, Integer> textCodes = codes.get(stat.ordinal());
+                        column[rows] = csv.isBlank(field) ? 0
+                            : textCodes.computeIfAbsent(csv.getString(field).trim(), k -> textCodes.size() + 1);
+                        break;
+                }
+            }
+            rows++;
+        }
+
+        // Column sections, then the header once their sizes are known
+        ByteArrayOutputStream[] sections = new ByteArrayOutputStream[stats.length];
+        int present = 0;
+        for (NpcStat stat : stats) {
+            if (fields[stat.ordinal()] < 0) {
+                continue;
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream section = new DataOutputStream(bytes);
+            int[] column = values[stat.ordinal()];
+            switch (stat.getKind()) {
+                case INT:
+                    writeInts(section, column, rows);
+                    break;
+                case BOOLEAN:
+                    writeBits(section, column, rows);
+                    break;
+                case TEXT:
+                    Map<String, Integer> dictionary = codes.get(stat.ordinal());
+                    String[] ordered = new String[dictionary.size()];
+                    dictionary.forEach((value, code) -> ordered[code - 1] = value);
+                    section.writeInt(ordered.length);
+                    for (String value : ordered) {
+                        section.writeUTF(value);
+                    }
+                    writeInts(section, column, rows);
+                    break;
+            }
+            section.flush();
+            sections[stat.ordinal()] = bytes;
+            present++;
+        }
+
+        // Magic, version, slot count, row map, row count and column count, then the directory
+        int headerLength = 5 * Integer.BYTES + slots * Character.BYTES;
+        for (NpcStat stat : stats) {
+            if (sections[stat.ordinal()] != null) {
+                headerLength += utfLength(stat.getColumn()) + 2 * Integer.BYTES;
+            }
+        }
+
+        out.writeInt(NpcStatsStore.MAGIC);
+        out.writeInt(NpcStatsStore.VERSION);
+        out.writeInt(slots);
+        for (int i = 0; i < slots; i++) {
+            out.writeChar(rowOf[i]);
+        }
+        out.writeInt(rows);
+        out.writeInt(present);
+        int offset = headerLength;
+        for (NpcStat stat : stats) {
+            ByteArrayOutputStream section = sections[stat.ordinal()];
+            if (section != null) {
+                out.writeUTF(stat.getColumn());
+                out.writeInt(offset);
+                out.writeInt(section.size());
+                offset += section.size();
+            }
+        }
+        for (ByteArrayOutputStream section : sections) {
+            if (section != null) {
+                section.writeTo(out);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Width byte, then each value in that width
+     */
+    private static void writeInts(DataOutputStream out, int[] column, int rows) throws IOException {
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int i = 0; i < rows; i++) {
+            if (column[i] != BLANK) {
+                min = Math.min(min, column[i]);
+                max = Math.max(max, column[i]);
+            }
+        }
+
+        // The minimum of each width is reserved for blanks
+        int width = min > Byte.MIN_VALUE && max <= Byte.MAX_VALUE ? Byte.BYTES
+            : min > Short.MIN_VALUE && max <= Short.MAX_VALUE ? Short.BYTES
+            : Integer.BYTES;
+        out.writeByte(width);
+        for (int i = 0; i < rows; i++) {
+            int value = column[i];
+            if (width == Byte.BYTES) {
+                out.writeByte(value == BLANK ? Byte.MIN_VALUE : value);
+            } else if (width == Short.BYTES) {
+                out.writeShort(value == BLANK ? Short.MIN_VALUE : value);
+            } else {
+                out.writeInt(value);
+            }
+        }
+    }
+
+    private static void writeBits(DataOutputStream out, int[] column, int rows) throws IOException {
+        long[] words = new long[(rows + 63) >>> 6];
+        for (int i = 0; i < rows; i++) {
+            if (column[i] != 0) {
+                words[i >>> 6] |= 1L << i;
+            }
+        }
+        for (long word : words) {
+            out.writeLong(word);
+        }
+    }
+
+    private static int utfLength(String value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new DataOutputStream(bytes).writeUTF(value);
+        return bytes.size();
+    }
+
+    private static int find(CsvReader csv, String name) {
+        for (int i = 0; i < csv.getFieldCount(); i++) {
+            if (csv.equalsIgnoreCase(i, name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static IllegalArgumentException malformed(CsvReader csv, String reason) {
+        return new IllegalArgumentException("Malformed NPC data at line " + csv.getLine() + ": " + reason);
+    }
+
+    private static int parseInt(CsvReader csv, int field, String column) {
+        try {
+            return csv.getInt(field);
+        } catch (NumberFormatException e) {
+            throw malformed(csv, "invalid " + column + " '" + csv.getString(field) + "'");
+        }
+    }
+}
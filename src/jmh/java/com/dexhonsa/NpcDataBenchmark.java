@@ -0,0 +1,97 @@
+package com.dexhonsa;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Dataset loading and per-id lookup costs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NpcDataBenchmark {
+
+    // Mix of present ids, ids with unknown max hit and ids outside the dataset
+    private static final int[] IDS = {415, 265, 240, 239, 443, 2, 26, 1, 514, 677, 14779, 999999};
+
+    private final NpcDataService service = new NpcDataService(new NpcStatsStore());
+    private final int[] records = new int[IDS.length];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        NPCDataLoader.loadData();
+    }
+
+    private int nextId() {
+        int id = IDS[next];
+        next = next + 1 == IDS.length ? 0 : next + 1;
+        return id;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public NpcStatsTable loadData() throws IOException {
+        return NPCDataLoader.readDataset();
+    }
+
+    @Benchmark
+    public int getRecord() {
+        return NPCDataLoader.getRecord(nextId());
+    }
+
+    @Benchmark
+    public int getRecordByName() {
+        // Unknown id, so every call goes through the name index
+        return NPCDataLoader.getRecord(-1, "Abyssal demon");
+    }
+
+    @Benchmark
+    public int[] getRecordsBulk() {
+        // Same ids as IDS.length calls to getRecord
+        service.getRecords(IDS, records);
+        return records;
+    }
+
+    @Benchmark
+    public int forEachRecord() {
+        return service.forEachRecord((npcId, record) -> { });
+    }
+
+    @Benchmark
+    public Integer getMaxHit() {
+        return NPCDataLoader.getMaxHit(nextId());
+    }
+
+    @Benchmark
+    public String getWeakness() {
+        return NPCDataLoader.getWeakness(nextId());
+    }
+
+    @Benchmark
+    public boolean isAggressive() {
+        return NPCDataLoader.isAggressive(nextId());
+    }
+
+    @Benchmark
+    public void determineWeakness(Blackhole bh) {
+        bh.consume(NpcCsvParser.determineWeakness(false, 20, 20, 20, 0, 20, 20, 20, 0));
+        bh.consume(NpcCsvParser.determineWeakness(true, 0, 0, 0, 40, 0, 0, 0, 0));
+        bh.consume(NpcCsvParser.determineWeakness(false, 45, 45, 35, 30, 55, 55, 55, 3));
+        bh.consume(NpcCsvParser.determineWeakness(false, 80, 80, 80, 20, 180, 180, 180, 0));
+    }
+}
@@ -0,0 +1,52 @@
+package com.dexhonsa;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One overlay frame drawn into an offscreen image by the {@link OverlayHarness}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class OverlayRenderBenchmark {
+
+    @Param({"50", "500", "2000"})
+    public int npcCount;
+
+    private NpcLevelOverlay overlay;
+    private Graphics2D graphics;
+
+    @Setup
+    public void setUp() {
+        overlay = new OverlayHarness().populate(npcCount).overlay;
+        graphics = OverlayHarness.graphics(new BufferedImage(FakeClient.VIEWPORT_WIDTH, FakeClient.VIEWPORT_HEIGHT, BufferedImage.TYPE_INT_ARGB_PRE));
+    }
+
+    @TearDown
+    public void tearDown() {
+        graphics.dispose();
+    }
+
+    @Benchmark
+    public Dimension render() {
+        return overlay.render(graphics);
+    }
+}
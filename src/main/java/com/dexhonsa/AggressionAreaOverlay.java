@@ -0,0 +1,344 @@
+package com.dexhonsa;
+
+import java.awt.BasicStroke;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Stroke;
+import java.awt.geom.Path2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.inject.Inject;
+import net.runelite.api.Client;
+import net.runelite.api.Constants;
+import net.runelite.api.NPCComposition;
+import net.runelite.api.Perspective;
+import net.runelite.api.Player;
+import net.runelite.api.Scene;
+import net.runelite.api.coords.LocalPoint;
+import net.runelite.client.ui.overlay.Overlay;
+import net.runelite.client.ui.overlay.OverlayLayer;
+import net.runelite.client.ui.overlay.OverlayPosition;
+
+/**
+ * Shades the tiles from which aggressive NPCs will attack the player, for the
+ * same NPCs that get the aggression icon.
+ *
+ * NPCs are grouped by ID. Each group's tiles are marked in a mask and turned
+ * into one fill shape and one outline of the merged area, so overlapping spawns
+ * cost no more to draw than one. Shapes are cached per group and only rebuilt
+ * when the camera moves, the scene reloads or a member of the group moves or
+ * changes aggression, so a still scene costs one pass over the tracked NPCs
+ * per frame.
+ *
+ * Accessed only from the client thread.
+ */
+class AggressionAreaOverlay extends Overlay
+{
+    private static final Stroke OUTLINE = new BasicStroke(1.5f);
+
+    private final Client client;
+    private final NpcRegistry registry;
+
+    // Config snapshot, replaced by the plugin on ConfigChanged
+    private RenderSettings settings;
+
+    private final ProjectionEngine projection = new ProjectionEngine();
+    // Set when cached shapes must be rebuilt whatever the camera does
+    private boolean stale = true;
+    private int lastPlane = -1;
+
+    // Few distinct aggressive NPC IDs are on screen at once, so groups are found by a linear scan
+    private final List<AreaGroup> groups = new ArrayList<>();
+
+    // Reused by rebuilds: tile mask and projected tile corners of the area's bounding box
+    private boolean[] mask = new boolean[0];
+    private int[] corners = new int[0];
+    private boolean[] cornerVisible = new boolean[0];
+
+    private long rebuilds;
+
+    @Inject
+    AggressionAreaOverlay(Client client, NpcLevelConfig config, NpcRegistry registry)
+    {
+        this.client = client;
+        this.registry = registry;
+        this.settings = RenderSettings.of(config);
+        setPosition(OverlayPosition.DYNAMIC);
+        setLayer(OverlayLayer.ABOVE_SCENE);
+    }
+
+    void setSettings(RenderSettings settings)
+    {
+        this.settings = settings;
+        stale = true;
+    }
+
+    /**
+     * Rebuild every shape on the next frame, e.g. after a new scene loads
+     */
+    void invalidate()
+    {
+        stale = true;
+    }
+
+    @Override
+    public Dimension render(Graphics2D graphics)
+    {
+        RenderSettings settings = this.settings;
+        Player local = client.getLocalPlayer();
+        if (!settings.showAggressionArea || local == null)
+        {
+            return null;
+        }
+
+        int plane = client.getTopLevelWorldView().getPlane();
+        boolean rebuildAll = projection.beginFrame(client) || stale || plane != lastPlane;
+        stale = false;
+        lastPlane = plane;
+
+        // Collect the footprint of every aggressive NPC in range into its group
+        for (int g = 0; g < groups.size(); g++)
+        {
+            groups.get(g).begin();
+        }
+        LocalPoint playerLocation = local.getLocalLocation();
+        List<TrackedNpc> tracked = registry.getEligible();
+        for (int i = 0; i < tracked.size(); i++)
+        {
+            TrackedNpc entry = tracked.get(i);
+            if (!entry.willAttack) continue;
+            LocalPoint lp = entry.npc.getLocalLocation();
+            if (lp == null || playerLocation == null) continue;
+            int distance = Math.max(Math.abs(lp.getX() - playerLocation.getX()), Math.abs(lp.getY() - playerLocation.getY()));
+            if (distance > settings.maxDistance) continue;
+
+            NPCComposition comp = entry.composition;
+            int size = comp != null ? Math.max(1, comp.getSize()) : 1;
+            // The local location is the centre of the footprint
+            int westX = (lp.getX() - (size - 1) * Perspective.LOCAL_HALF_TILE_SIZE) >> Perspective.LOCAL_COORD_BITS;
+            int southY = (lp.getY() - (size - 1) * Perspective.LOCAL_HALF_TILE_SIZE) >> Perspective.LOCAL_COORD_BITS;
+            group(entry.npc.getId()).add(westX, southY, size);
+        }
+
+        for (int g = groups.size() - 1; g >= 0; g--)
+        {
+            AreaGroup group = groups.get(g);
+            if (group.count == 0)
+            {
+                groups.remove(g);
+                continue;
+            }
+            if (rebuildAll || group.hasChanged())
+            {
+                rebuild(group, plane, settings.aggressionRadius);
+            }
+            graphics.setColor(settings.aggressionAreaFill);
+            graphics.fill(group.fill);
+            graphics.setColor(settings.aggressionAreaColour);
+            graphics.setStroke(OUTLINE);
+            graphics.draw(group.outline);
+        }
+        return null;
+    }
+
+    private AreaGroup group(int npcId)
+    {
+        for (int g = 0; g < groups.size(); g++)
+        {
+            AreaGroup group = groups.get(g);
+            if (group.npcId == npcId)
+            {
+                return group;
+            }
+        }
+        AreaGroup group = new AreaGroup(npcId);
+        groups.add(group);
+        return group;
+    }
+
+    /**
+     * Mark the group's tiles, project their corners once each and build the
+     * merged fill and its outline
+     */
+    private void rebuild(AreaGroup group, int plane, int radius)
+    {
+        rebuilds++;
+        group.commit();
+        group.fill.reset();
+        group.outline.reset();
+
+        // Bounding box of the area in scene tiles, kept one tile inside the scene so corners stay projectable
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        for (int m = 0; m < group.count; m++)
+        {
+            minX = Math.min(minX, group.westX[m] - radius);
+            minY = Math.min(minY, group.southY[m] - radius);
+            maxX = Math.max(maxX, group.westX[m] + group.size[m] - 1 + radius);
+            maxY = Math.max(maxY, group.southY[m] + group.size[m] - 1 + radius);
+        }
+        minX = Math.max(minX, 1);
+        minY = Math.max(minY, 1);
+        maxX = Math.min(maxX, Perspective.SCENE_SIZE - 3);
+        maxY = Math.min(maxY, Perspective.SCENE_SIZE - 3);
+        if (minX > maxX || minY > maxY)
+        {
+            return;
+        }
+
+        int width = maxX - minX + 1;
+        int height = maxY - minY + 1;
+        if (mask.length < width * height)
+        {
+            mask = new boolean[width * height];
+        }
+        Arrays.fill(mask, 0, width * height, false);
+        for (int m = 0; m < group.count; m++)
+        {
+            int fromX = Math.max(minX, group.westX[m] - radius);
+            int fromY = Math.max(minY, group.southY[m] - radius);
+            int toX = Math.min(maxX, group.westX[m] + group.size[m] - 1 + radius);
+            int toY = Math.min(maxY, group.southY[m] + group.size[m] - 1 + radius);
+            if (fromX > toX) continue;
+            for (int y = fromY; y <= toY; y++)
+            {
+                Arrays.fill(mask, (y - minY) * width + fromX - minX, (y - minY) * width + toX - minX + 1, true);
+            }
+        }
+
+        // Tile corners are shared by up to four tiles, so project each once
+        // Corners sit exactly on tile vertices, so their height is the scene's vertex height with no
+        // interpolation, as Perspective.getTileHeight would compute it
+        Scene scene = client.getTopLevelWorldView().getScene();
+        int[][][] tileHeights = scene.getTileHeights();
+        byte[][][] tileSettings = scene.getTileSettings();
+        int cornerWidth = width + 1;
+        int cornerCount = cornerWidth * (height + 1);
+        if (cornerVisible.length < cornerCount)
+        {
+            cornerVisible = new boolean[cornerCount];
+            corners = new int[cornerCount * 2];
+        }
+        for (int y = 0; y <= height; y++)
+        {
+            for (int x = 0; x <= width; x++)
+            {
+                int sceneX = minX + x;
+                int sceneY = minY + y;
+                int heightPlane = plane < 3 && (tileSettings[1][sceneX][sceneY] & Constants.TILE_FLAG_BRIDGE) != 0 ? plane + 1 : plane;
+                int z = tileHeights[heightPlane][sceneX][sceneY];
+                int localX = sceneX << Perspective.LOCAL_COORD_BITS;
+                int localY = sceneY << Perspective.LOCAL_COORD_BITS;
+                int corner = y * cornerWidth + x;
+                cornerVisible[corner] = projection.toCanvas(localX, localY, z, corners, corner * 2);
+            }
+        }
+
+        for (int y = 0; y < height; y++)
+        {
+            for (int x = 0; x < width; x++)
+            {
+                if (!mask[y * width + x]) continue;
+                int sw = y * cornerWidth + x;
+                int se = sw + 1;
+                int nw = sw + cornerWidth;
+                int ne = nw + 1;
+                if (!cornerVisible[sw] || !cornerVisible[se] || !cornerVisible[nw] || !cornerVisible[ne]) continue;
+
+                // Same winding for every tile, so the non-zero fill of overlapping tiles is their union
+                group.fill.moveTo(corners[sw * 2], corners[sw * 2 + 1]);
+                group.fill.lineTo(corners[se * 2], corners[se * 2 + 1]);
+                group.fill.lineTo(corners[ne * 2], corners[ne * 2 + 1]);
+                group.fill.lineTo(corners[nw * 2], corners[nw * 2 + 1]);
+                group.fill.closePath();
+
+                // Outline only the sides facing a tile outside the area
+                if (y == 0 || !mask[(y - 1) * width + x]) edge(group.outline, sw, se);
+                if (x == width - 1 || !mask[y * width + x + 1]) edge(group.outline, se, ne);
+                if (y == height - 1 || !mask[(y + 1) * width + x]) edge(group.outline, ne, nw);
+                if (x == 0 || !mask[y * width + x - 1]) edge(group.outline, nw, sw);
+            }
+        }
+    }
+
+    private void edge(Path2D.Float outline, int from, int to)
+    {
+        outline.moveTo(corners[from * 2], corners[from * 2 + 1]);
+        outline.lineTo(corners[to * 2], corners[to * 2 + 1]);
+    }
+
+    /**
+     * Number of groups drawn last frame
+     */
+    int getGroupCount()
+    {
+        return groups.size();
+    }
+
+    /**
+     * Group shapes rebuilt since creation
+     */
+    long getRebuilds()
+    {
+        return rebuilds;
+    }
+
+    /**
+     * Aggressive NPCs sharing an ID, with their footprints this frame and the
+     * footprints the cached shapes were built from
+     */
+    private static final class AreaGroup
+    {
+        final int npcId;
+        final Path2D.Float fill = new Path2D.Float(Path2D.WIND_NON_ZERO);
+        final Path2D.Float outline = new Path2D.Float();
+
+        int count;
+        int[] westX = new int[4];
+        int[] southY = new int[4];
+        int[] size = new int[4];
+        // Footprints hashed in registry order, now and when the shapes were built
+        private long signature;
+        private long builtSignature = -1;
+
+        AreaGroup(int npcId)
+        {
+            this.npcId = npcId;
+            begin();
+        }
+
+        void begin()
+        {
+            count = 0;
+            signature = 1;
+        }
+
+        void add(int x, int y, int tiles)
+        {
+            if (count == westX.length)
+            {
+                westX = Arrays.copyOf(westX, count * 2);
+                southY = Arrays.copyOf(southY, count * 2);
+                size = Arrays.copyOf(size, count * 2);
+            }
+            westX[count] = x;
+            southY[count] = y;
+            size[count] = tiles;
+            count++;
+            signature = signature * 31 + ((long) x << 32 | (long) y << 8 | tiles);
+        }
+
+        boolean hasChanged()
+        {
+            return signature != builtSignature;
+        }
+
+        void commit()
+        {
+            builtSignature = signature;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.dexhonsa;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import net.runelite.api.Client;
+import net.runelite.api.Player;
+import net.runelite.api.coords.WorldPoint;
+
+/**
+ * Tracks the player's aggression tolerance. Aggressive NPCs stop attacking once
+ * the player has stayed within the same area for ten minutes; the area is
+ * anchored where the player last moved more than {@link #REGION_RADIUS} tiles
+ * from the previous anchor.
+ *
+ * Each game tick costs a distance check and two comparisons. The registry is only
+ * told when the tolerance state or the player's combat level changes, and then
+ * re-rates each tracked NPC once. Accessed only from the client thread.
+ */
+@Singleton
+class AggressionTracker {
+
+    /** Ten minutes of 0.6 second ticks */
+    static final int TOLERANCE_TICKS = 1000;
+    /** Tiles the player can move from the anchor, in either direction, without resetting the timer */
+    static final int REGION_RADIUS = 10;
+
+    private final Client client;
+    private final NpcRegistry registry;
+
+    private WorldPoint anchor;
+    private int anchorTick;
+    private boolean tolerant;
+    private int playerLevel = -1;
+
+    @Inject
+    AggressionTracker(Client client, NpcRegistry registry) {
+        this.client = client;
+        this.registry = registry;
+    }
+
+    void onGameTick() {
+        Player local = client.getLocalPlayer();
+        if (local == null) {
+            return;
+        }
+
+        WorldPoint location = local.getWorldLocation();
+        int tick = client.getTickCount();
+        if (location != null && (anchor == null
+            || location.getPlane() != anchor.getPlane()
+            || Math.abs(location.getX() - anchor.getX()) > REGION_RADIUS
+            || Math.abs(location.getY() - anchor.getY()) > REGION_RADIUS)) {
+            anchor = location;
+            anchorTick = tick;
+        }
+
+        boolean nowTolerant = anchor != null && tick - anchorTick >= TOLERANCE_TICKS;
+        int level = local.getCombatLevel();
+        if (nowTolerant != tolerant || level != playerLevel) {
+            tolerant = nowTolerant;
+            playerLevel = level;
+            registry.setAggressionState(level, nowTolerant);
+        }
+    }
+
+    /**
+     * Forget the anchor, e.g. after logging out or hopping worlds
+     */
+    void reset() {
+        anchor = null;
+        tolerant = false;
+        playerLevel = -1;
+    }
+
+    boolean isTolerant() {
+        return tolerant;
+    }
+
+    /**
+     * Ticks until tolerance sets in, 0 once it has
+     */
+    int getTicksRemaining() {
+        return anchor == null ? TOLERANCE_TICKS : Math.max(0, TOLERANCE_TICKS - (client.getTickCount() - anchorTick));
+    }
+
+    /**
+     * Whether an NPC with this record and level will attack the player
+     */
+    static boolean willAttack(int record, int npcLevel, int playerLevel, boolean tolerant) {
+        if (NpcRecord.isAlwaysAggressive(record)) {
+            return true;
+        }
+        if (!NpcRecord.isAggressive(record) || tolerant) {
+            return false;
+        }
+        // OSRS aggression formula: if playerLevel > (2 * npcLevel + 1), NPC won't auto-attack
+        // Example: level 28 hobgoblin won't attack level 57+ players
+        return playerLevel <= (2 * npcLevel + 1);
+    }
+}
@@ -0,0 +1,231 @@
+package com.dexhonsa;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Single-pass, streaming RFC 4180 CSV tokenizer.
+ *
+ * Each call to {@link #nextRow()} decodes one record into a reusable char
+ * buffer and records where every field starts and ends, so reading a row and
+ * parsing its numeric fields allocates nothing. Quoted fields may contain
+ * commas, line breaks and doubled quotes ("") which are unescaped in place.
+ * Strings are only created on request via {@link #getString(int)}.
+ */
+final class CsvReader {
+
+    private static final int EOF = -1;
+
+    private final Reader reader;
+    private final char[] input = new char[8192];
+    private int inputPos;
+    private int inputLimit;
+
+    private char[] row = new char[256];
+    private int rowLength;
+    private int[] fieldStart = new int[32];
+    private int[] fieldEnd = new int[32];
+    private int fieldCount;
+
+    private int line = 1;
+    private int rowLine;
+
+    CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Advance to the next record.
+     *
+     * @return false at end of input
+     * @throws IllegalArgumentException on an unterminated quoted field
+     */
+    boolean nextRow() throws IOException {
+        rowLength = 0;
+        fieldCount = 0;
+        rowLine = line;
+
+        int c = read();
+        if (c == EOF) {
+            return false;
+        }
+
+        int start = 0;
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == EOF) {
+                    throw new IllegalArgumentException("Unterminated quoted field starting at line " + rowLine);
+                }
+                if (c == '"') {
+                    int next = read();
+                    if (next == '"') {
+                        append('"');
+                    } else {
+                        quoted = false;
+                        c = next;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n') line++;
+                    append((char) c);
+                }
+            } else if (c == '"' && rowLength == start) {
+                quoted = true;
+            } else if (c == ',') {
+                endField(start);
+                start = rowLength;
+            } else if (c == '\r' || c == '\n' || c == EOF) {
+                if (c == '\r') {
+                    int next = read();
+                    if (next != '\n' && next != EOF) inputPos--;
+                }
+                if (c != EOF) line++;
+                endField(start);
+                return true;
+            } else {
+                append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    /**
+     * Physical line number on which the current record starts
+     */
+    int getLine() {
+        return rowLine;
+    }
+
+    int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Whether the field is empty or only whitespace
+     */
+    boolean isBlank(int field) {
+        for (int i = fieldStart[field]; i < fieldEnd[field]; i++) {
+            if (!Character.isWhitespace(row[i])) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Whether the trimmed field equals {@code value}, ignoring case
+     */
+    boolean equalsIgnoreCase(int field, String value) {
+        int start = trimStart(field);
+        int end = trimEnd(field, start);
+        if (end - start != value.length()) return false;
+        for (int i = 0; i < value.length(); i++) {
+            if (!sameIgnoreCase(row[start + i], value.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Whether the field contains {@code value}, ignoring case
+     */
+    boolean containsIgnoreCase(int field, String value) {
+        int last = fieldEnd[field] - value.length();
+        outer:
+        for (int i = fieldStart[field]; i <= last; i++) {
+            for (int j = 0; j < value.length(); j++) {
+                if (!sameIgnoreCase(row[i + j], value.charAt(j))) continue outer;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Parse the trimmed field as a base-10 int directly from the row buffer.
+     *
+     * @throws NumberFormatException if the field is not an int
+     */
+    int getInt(int field) {
+        int start = trimStart(field);
+        int end = trimEnd(field, start);
+        if (start == end) {
+            throw new NumberFormatException("empty field");
+        }
+
+        boolean negative = false;
+        int i = start;
+        if (row[i] == '-' || row[i] == '+') {
+            negative = row[i] == '-';
+            if (++i == end) throw new NumberFormatException(getString(field));
+        }
+
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = row[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException(getString(field));
+            }
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw new NumberFormatException(getString(field));
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw new NumberFormatException(getString(field));
+        }
+        return (int) value;
+    }
+
+    /**
+     * Copy the field out as a String. Allocates; avoid in per-row hot paths.
+     */
+    String getString(int field) {
+        return new String(row, fieldStart[field], fieldEnd[field] - fieldStart[field]);
+    }
+
+    private int trimStart(int field) {
+        int i = fieldStart[field];
+        while (i < fieldEnd[field] && Character.isWhitespace(row[i])) i++;
+        return i;
+    }
+
+    private int trimEnd(int field, int start) {
+        int i = fieldEnd[field];
+        while (i > start && Character.isWhitespace(row[i - 1])) i--;
+        return i;
+    }
+
+    private static boolean sameIgnoreCase(char a, char b) {
+        return a == b || Character.toLowerCase(a) == Character.toLowerCase(b);
+    }
+
+    private void append(char c) {
+        if (rowLength == row.length) {
+            row = Arrays.copyOf(row, row.length * 2);
+        }
+        row[rowLength++] = c;
+    }
+
+    private void endField(int start) {
+        if (fieldCount == fieldStart.length) {
+            fieldStart = Arrays.copyOf(fieldStart, fieldCount * 2);
+            fieldEnd = Arrays.copyOf(fieldEnd, fieldCount * 2);
+        }
+        fieldStart[fieldCount] = start;
+        fieldEnd[fieldCount] = rowLength;
+        fieldCount++;
+    }
+
+    private int read() throws IOException {
+        if (inputPos == inputLimit) {
+            int n = reader.read(input, 0, input.length);
+            if (n <= 0) {
+                return EOF;
+            }
+            inputPos = 0;
+            inputLimit = n;
+        }
+        return input[inputPos++];
+    }
+}
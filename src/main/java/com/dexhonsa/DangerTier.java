@@ -0,0 +1,57 @@
+package com.dexhonsa;
+
+import java.awt.Color;
+
+/**
+ * How dangerous an NPC's max hit is relative to the player's current hitpoints.
+ * Computed when hitpoints change or an NPC is resolved, never per frame.
+ */
+enum DangerTier {
+    /** Max hit or hitpoints unknown */
+    UNKNOWN(null, ""),
+    SAFE(new Color(0x00FF00), ""),
+    /** Can take a quarter or more of current hitpoints in one hit */
+    RISKY(new Color(0xFFFF00), "!"),
+    /** Can kill in two hits */
+    TWO_HITS(new Color(0xFF981F), "!!"),
+    /** Can kill in one hit */
+    ONE_HIT(new Color(0xFF0000), "!!!");
+
+    private final Color colour;
+    private final String flag;
+
+    DangerTier(Color colour, String flag) {
+        this.colour = colour;
+        this.flag = flag;
+    }
+
+    /**
+     * Label colour for this tier, or null when the tier is unknown
+     */
+    public Color getColour() {
+        return colour;
+    }
+
+    /**
+     * Marker appended to the max hit, empty for unknown and safe NPCs
+     */
+    public String getFlag() {
+        return flag;
+    }
+
+    static DangerTier of(int maxHit, int hitpoints) {
+        if (maxHit <= 0 || hitpoints <= 0) {
+            return UNKNOWN;
+        }
+        if (maxHit >= hitpoints) {
+            return ONE_HIT;
+        }
+        if (maxHit * 2 >= hitpoints) {
+            return TWO_HITS;
+        }
+        if (maxHit * 4 >= hitpoints) {
+            return RISKY;
+        }
+        return SAFE;
+    }
+}
@@ -0,0 +1,151 @@
+package com.dexhonsa;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Watches the dataset override file and re-applies it whenever it is created,
+ * changed or deleted. Parsing happens on the watcher's own daemon thread; the
+ * callback runs there too once the new snapshot has been published.
+ */
+@Slf4j
+class DatasetWatcher implements Runnable {
+
+    /** Editors often save in several steps; wait for the file to settle before reading it */
+    private static final long SETTLE_MILLIS = 250;
+
+    private final Path file;
+    private final Runnable onReload;
+
+    private WatchService watchService;
+    private Thread thread;
+    private boolean stopped;
+
+    /**
+     * @param file the override file; its directory is created if missing
+     * @param onReload run after each reload that published a new snapshot
+     */
+    DatasetWatcher(Path file, Runnable onReload) {
+        this.file = file;
+        this.onReload = onReload;
+    }
+
+    /**
+     * Start watching. Does nothing if {@link #stop} has already been called,
+     * so a start racing with plugin shutdown cannot leak the thread.
+     */
+    synchronized void start() throws IOException {
+        if (stopped || thread != null) {
+            return;
+        }
+        watchService = file.getFileSystem().newWatchService();
+        register(watchService);
+
+        thread = new Thread(this, "NPC Level Overlay dataset watcher");
+        thread.setDaemon(true);
+        thread.start();
+        log.debug("Watching {} for NPC data overrides", file);
+    }
+
+    synchronized void stop() {
+        stopped = true;
+        if (watchService != null) {
+            try {
+                // Wakes the watcher thread out of take()
+                watchService.close();
+            } catch (IOException e) {
+                log.debug("Failed to close dataset watch service", e);
+            }
+            watchService = null;
+        }
+        thread = null;
+    }
+
+    @Override
+    public void run() {
+        WatchService service;
+        synchronized (this) {
+            service = watchService;
+        }
+        if (service == null) {
+            return;
+        }
+
+        try {
+            while (true) {
+                if (!awaitChange(service)) {
+                    continue;
+                }
+                // Collapse the burst of events from a single save into one reload
+                Thread.sleep(SETTLE_MILLIS);
+                WatchKey key;
+                while ((key = service.poll()) != null) {
+                    key.pollEvents();
+                    reset(service, key);
+                }
+
+                if (NPCDataLoader.loadOverrides(file)) {
+                    onReload.run();
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // Stopped
+        } catch (IOException e) {
+            log.warn("Stopped watching {} for NPC data overrides", file, e);
+        }
+    }
+
+    /**
+     * Create the override file's directory if missing and register it
+     */
+    private void register(WatchService service) throws IOException {
+        Path directory = file.getParent();
+        Files.createDirectories(directory);
+        directory.register(service,
+            StandardWatchEventKinds.ENTRY_CREATE,
+            StandardWatchEventKinds.ENTRY_MODIFY,
+            StandardWatchEventKinds.ENTRY_DELETE);
+    }
+
+    /**
+     * Re-arm a key once its events are handled. A key that cannot be reset was
+     * cancelled because the directory was deleted or became inaccessible, so
+     * the directory is recreated and registered again.
+     *
+     * @return false if the key was cancelled
+     * @throws IOException if the directory cannot be watched again
+     */
+    private boolean reset(WatchService service, WatchKey key) throws IOException {
+        if (key.reset()) {
+            return true;
+        }
+        log.warn("Lost the watch on {}, registering it again", file.getParent());
+        register(service);
+        return false;
+    }
+
+    /**
+     * Block for the next batch of events
+     *
+     * @return true if any of them may concern the override file
+     */
+    private boolean awaitChange(WatchService service) throws InterruptedException, IOException {
+        WatchKey key = service.take();
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            // Overflow means events were lost, so the file may have changed
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || file.getFileName().equals(event.context())) {
+                changed = true;
+            }
+        }
+        // A cancelled key means the directory, and any override in it, went away
+        return !reset(service, key) || changed;
+    }
+}
@@ -0,0 +1,185 @@
+package com.dexhonsa;
+
+/**
+ * Adaptive detail for the overlay. When rendering takes longer than the
+ * configured per-frame budget, detail is stepped down one level at a time, and
+ * stepped back up once there is headroom again.
+ *
+ * Frame times are smoothed with an exponential moving average. The level only
+ * moves after the average has stayed over the budget, or well under it, for a
+ * run of frames, and the band in between holds the current level, so a single
+ * slow frame or a scene hovering around the budget does not make labels flicker.
+ *
+ * From {@link Detail#STALE_LABELS} down most frames only move retained labels
+ * and are cheap, so the average of all frames says little about the level
+ * above, which refreshes every frame. Refresh frames are therefore also
+ * averaged on their own, and detail only steps up when that average has
+ * headroom too.
+ *
+ * Accessed only from the client thread.
+ */
+class FrameBudget {
+
+    enum Detail {
+        /** Everything is drawn every frame */
+        FULL,
+        /** Weakness and aggression icons are dropped */
+        NO_ICONS,
+        /** Labels are chosen and laid out every {@link #LABEL_REFRESH_FRAMES} frames; in between only their positions move */
+        STALE_LABELS,
+        /** As above, and labels of NPCs that are neither fighting nor aggressive are re-projected in turns */
+        ROUND_ROBIN
+    }
+
+    /** Frames between label refreshes from {@link Detail#STALE_LABELS} down */
+    static final int LABEL_REFRESH_FRAMES = 4;
+    /** Low-priority labels are re-projected once in this many frames at {@link Detail#ROUND_ROBIN} */
+    static final int ROUND_ROBIN_SLICES = 3;
+    /** Consecutive frames over budget before stepping down */
+    static final int STEP_DOWN_FRAMES = 30;
+    /** Consecutive frames with headroom before stepping up */
+    static final int STEP_UP_FRAMES = 180;
+
+    // Headroom means the average is under this share of the budget
+    private static final int HEADROOM_PERCENT = 60;
+    // Each sample moves the average by 1/8 of the difference
+    private static final int SMOOTHING_SHIFT = 3;
+    // A frame that runs past this many budgets stops resolving further labels
+    private static final int DEADLINE_BUDGETS = 2;
+
+    private static final Detail[] LEVELS = Detail.values();
+
+    // 0 when adaptive detail is off
+    private long budgetNanos;
+    private Detail detail = Detail.FULL;
+    private long averageNanos = -1;
+    // Average of the frames that chose and laid out labels from scratch
+    private long refreshAverageNanos = -1;
+    private int overFrames;
+    private int underFrames;
+    private long frame;
+    private boolean refresh = true;
+
+    /**
+     * Set the budget, or 0 to always draw at full detail. Changing it starts
+     * over from full detail.
+     */
+    void setBudgetMicros(int micros) {
+        long nanos = Math.max(0, micros) * 1_000L;
+        if (nanos != budgetNanos) {
+            budgetNanos = nanos;
+            reset();
+        }
+    }
+
+    boolean isEnabled() {
+        return budgetNanos > 0;
+    }
+
+    Detail getDetail() {
+        return detail;
+    }
+
+    /**
+     * Start a frame
+     *
+     * @return the frame's start time for {@link #isPastDeadline} and {@link #endFrame}, or 0 when disabled
+     */
+    long beginFrame() {
+        frame++;
+        return budgetNanos > 0 ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Whether this frame should choose and lay out labels from scratch rather
+     * than move the previous frame's
+     */
+    boolean isLabelRefresh() {
+        if (refresh || detail.compareTo(Detail.STALE_LABELS) < 0 || frame % LABEL_REFRESH_FRAMES == 0) {
+            refresh = false;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Whether the low-priority label in this slot is re-projected this frame.
+     * Always true above {@link Detail#ROUND_ROBIN}.
+     */
+    boolean isProjectionTurn(int slot) {
+        return detail != Detail.ROUND_ROBIN || (slot + frame) % ROUND_ROBIN_SLICES == 0;
+    }
+
+    /**
+     * Cheap check for loops: whether the frame has already run well past its budget
+     */
+    boolean isPastDeadline(long frameStart) {
+        return budgetNanos > 0 && System.nanoTime() - frameStart > budgetNanos * DEADLINE_BUDGETS;
+    }
+
+    /**
+     * Make the next frame refresh its labels, e.g. after sprites were invalidated
+     */
+    void requestRefresh() {
+        refresh = true;
+    }
+
+    /**
+     * @param labelRefresh whether the frame refreshed its labels, see {@link #isLabelRefresh()}
+     */
+    void endFrame(long frameStart, boolean labelRefresh) {
+        if (budgetNanos > 0) {
+            record(System.nanoTime() - frameStart, labelRefresh);
+        }
+    }
+
+    /**
+     * Account for one frame's render time and step detail up or down
+     *
+     * @param labelRefresh whether the frame refreshed its labels rather than moving retained ones
+     */
+    void record(long nanos, boolean labelRefresh) {
+        if (budgetNanos == 0) {
+            return;
+        }
+        averageNanos = smooth(averageNanos, nanos);
+        if (labelRefresh) {
+            refreshAverageNanos = smooth(refreshAverageNanos, nanos);
+        }
+
+        if (averageNanos > budgetNanos) {
+            underFrames = 0;
+            if (++overFrames >= STEP_DOWN_FRAMES && detail.ordinal() < LEVELS.length - 1) {
+                step(LEVELS[detail.ordinal() + 1]);
+            }
+        } else if (Math.max(averageNanos, refreshAverageNanos) * 100 < budgetNanos * HEADROOM_PERCENT) {
+            overFrames = 0;
+            if (++underFrames >= STEP_UP_FRAMES && detail != Detail.FULL) {
+                step(LEVELS[detail.ordinal() - 1]);
+            }
+        } else {
+            overFrames = 0;
+            underFrames = 0;
+        }
+    }
+
+    private static long smooth(long average, long nanos) {
+        return average < 0 ? nanos : average + ((nanos - average) >> SMOOTHING_SHIFT);
+    }
+
+    private void step(Detail detail) {
+        this.detail = detail;
+        overFrames = 0;
+        underFrames = 0;
+        refresh = true;
+    }
+
+    private void reset() {
+        detail = Detail.FULL;
+        averageNanos = -1;
+        refreshAverageNanos = -1;
+        overFrames = 0;
+        underFrames = 0;
+        refresh = true;
+    }
+}
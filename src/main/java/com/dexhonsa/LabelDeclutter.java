@@ -0,0 +1,211 @@
+package com.dexhonsa;
+
+import java.util.Arrays;
+
+/**
+ * Per-frame declutter pass for projected labels.
+ *
+ * Labels are first stacked: NPCs on the same tile with the same label, level and
+ * record collapse into one group drawn as "Cow (2) x7". Groups are then placed
+ * in priority order, and a group whose rectangle overlaps an already placed one
+ * is dropped. Placed rectangles are bucketed into a uniform screen grid, so each
+ * overlap test only looks at the few rectangles sharing its cells and the whole
+ * pass stays O(n) per frame.
+ *
+ * All state lives in reusable arrays; nothing is allocated once they have grown.
+ * Accessed only from the client thread.
+ */
+class LabelDeclutter {
+
+    /** Grid cell size in pixels, a little wider than a typical label is tall */
+    static final int CELL_SIZE = 64;
+
+    // Stacked groups, in the order they were first added
+    private int groupCount;
+    private int[] groupIndex = new int[64];
+    private int[] groupTile = new int[64];
+    private String[] groupLabel = new String[64];
+    private int[] groupRecord = new int[64];
+    private int[] groupLevel = new int[64];
+    private int[] groupSize = new int[64];
+    private int[] groupX = new int[64];
+    private int[] groupY = new int[64];
+
+    // Open-addressed table of group ids + 1 for finding a group to stack onto
+    private int[] table = new int[128];
+    private boolean stack;
+
+    // Placed rectangles and the grid cells chaining them
+    private int rectCount;
+    private int[] rects = new int[64 * 4];
+    private int cellsX;
+    private int cellsY;
+    private int[] cellHead = new int[0];
+    private int entryCount;
+    private int[] entryRect = new int[256];
+    private int[] entryNext = new int[256];
+
+    /**
+     * Start a new frame
+     *
+     * @param expected an upper bound on the number of labels that will be added
+     * @param width viewport width in pixels
+     * @param height viewport height in pixels
+     * @param stack whether identical labels on the same tile should be stacked
+     */
+    void reset(int expected, int width, int height, boolean stack) {
+        this.stack = stack;
+        groupCount = 0;
+        rectCount = 0;
+        entryCount = 0;
+
+        int tableSize = Integer.highestOneBit(Math.max(expected, 32) * 2 - 1) << 1;
+        if (table.length < tableSize) {
+            table = new int[tableSize];
+        } else {
+            Arrays.fill(table, 0);
+        }
+
+        cellsX = Math.max(1, (width + CELL_SIZE - 1) / CELL_SIZE);
+        cellsY = Math.max(1, (height + CELL_SIZE - 1) / CELL_SIZE);
+        if (cellHead.length < cellsX * cellsY) {
+            cellHead = new int[cellsX * cellsY];
+        }
+        Arrays.fill(cellHead, 0, cellsX * cellsY, -1);
+    }
+
+    /**
+     * Add a projected label, stacking it onto an existing group when the tile,
+     * label, level and record all match
+     *
+     * @param index the caller's index for the label, kept for the first one in a group
+     * @param tile packed scene tile the NPC stands on
+     * @param x projected anchor x relative to the viewport
+     * @param y projected anchor y relative to the viewport
+     * @return the group the label was added to
+     */
+    int add(int index, int tile, String label, int record, int level, int x, int y) {
+        int mask = table.length - 1;
+        int slot = mix(((tile * 31 + label.hashCode()) * 31 + record) * 31 + level) & mask;
+        for (int group; stack && (group = table[slot] - 1) >= 0; slot = (slot + 1) & mask) {
+            if (groupTile[group] == tile && groupRecord[group] == record && groupLevel[group] == level
+                && groupLabel[group].equals(label)) {
+                groupSize[group]++;
+                return group;
+            }
+        }
+
+        if (groupCount == groupIndex.length) {
+            growGroups();
+        }
+        int group = groupCount++;
+        groupIndex[group] = index;
+        groupTile[group] = tile;
+        groupLabel[group] = label;
+        groupRecord[group] = record;
+        groupLevel[group] = level;
+        groupSize[group] = 1;
+        groupX[group] = x;
+        groupY[group] = y;
+        if (stack) {
+            table[slot] = group + 1;
+        }
+        return group;
+    }
+
+    int getGroupCount() {
+        return groupCount;
+    }
+
+    int getIndex(int group) {
+        return groupIndex[group];
+    }
+
+    int getSize(int group) {
+        return groupSize[group];
+    }
+
+    int getX(int group) {
+        return groupX[group];
+    }
+
+    int getY(int group) {
+        return groupY[group];
+    }
+
+    /**
+     * Try to place a label rectangle, in viewport coordinates
+     *
+     * @return true if it overlaps no previously placed rectangle and was placed
+     */
+    boolean place(int left, int top, int width, int height) {
+        int right = left + width;
+        int bottom = top + height;
+        int minCellX = cell(left, cellsX);
+        int maxCellX = cell(right - 1, cellsX);
+        int minCellY = cell(top, cellsY);
+        int maxCellY = cell(bottom - 1, cellsY);
+
+        for (int cy = minCellY; cy <= maxCellY; cy++) {
+            for (int cx = minCellX; cx <= maxCellX; cx++) {
+                for (int e = cellHead[cy * cellsX + cx]; e >= 0; e = entryNext[e]) {
+                    int r = entryRect[e] * 4;
+                    if (left < rects[r + 2] && rects[r] < right && top < rects[r + 3] && rects[r + 1] < bottom) {
+                        return false;
+                    }
+                }
+            }
+        }
+
+        if ((rectCount + 1) * 4 > rects.length) {
+            rects = Arrays.copyOf(rects, rects.length * 2);
+        }
+        int rect = rectCount++;
+        rects[rect * 4] = left;
+        rects[rect * 4 + 1] = top;
+        rects[rect * 4 + 2] = right;
+        rects[rect * 4 + 3] = bottom;
+
+        for (int cy = minCellY; cy <= maxCellY; cy++) {
+            for (int cx = minCellX; cx <= maxCellX; cx++) {
+                if (entryCount == entryRect.length) {
+                    entryRect = Arrays.copyOf(entryRect, entryCount * 2);
+                    entryNext = Arrays.copyOf(entryNext, entryCount * 2);
+                }
+                int c = cy * cellsX + cx;
+                entryRect[entryCount] = rect;
+                entryNext[entryCount] = cellHead[c];
+                cellHead[c] = entryCount++;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Pack a scene tile into the key used for stacking
+     */
+    static int tile(int sceneX, int sceneY, int plane) {
+        return (plane << 24) | ((sceneX & 0xFFF) << 12) | (sceneY & 0xFFF);
+    }
+
+    private static int cell(int coordinate, int cells) {
+        // Rectangles hanging off the viewport edge are clamped into the border cells
+        return Math.min(Math.max(coordinate / CELL_SIZE, 0), cells - 1);
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private void growGroups() {
+        int capacity = groupIndex.length * 2;
+        groupIndex = Arrays.copyOf(groupIndex, capacity);
+        groupTile = Arrays.copyOf(groupTile, capacity);
+        groupLabel = Arrays.copyOf(groupLabel, capacity);
+        groupRecord = Arrays.copyOf(groupRecord, capacity);
+        groupLevel = Arrays.copyOf(groupLevel, capacity);
+        groupSize = Arrays.copyOf(groupSize, capacity);
+        groupX = Arrays.copyOf(groupX, capacity);
+        groupY = Arrays.copyOf(groupY, capacity);
+    }
+}
@@ -0,0 +1,113 @@
+package com.dexhonsa;
+
+import java.util.Arrays;
+
+/**
+ * Bounded top-K selection of labels for one frame. Candidates are offered with
+ * a priority tier and a distance; once the limit is reached a new candidate
+ * only gets in by evicting the least relevant one, so a frame costs
+ * O(n log k) no matter how many NPCs are in the scene.
+ *
+ * Each candidate is packed into a single long (tier, then inverted distance,
+ * then the caller's index) and kept in a reusable min-heap, so selection does
+ * not allocate once the buffer has grown. Accessed only from the client thread.
+ */
+class LabelSelector {
+
+    /** Interacting with the local player */
+    static final int TIER_INTERACTING = 2;
+    /** Will auto-attack the local player */
+    static final int TIER_AGGRESSIVE = 1;
+    static final int TIER_NONE = 0;
+
+    private static final int INDEX_BITS = 24;
+    private static final int DISTANCE_BITS = 24;
+    private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+    private static final int MAX_DISTANCE = (1 << DISTANCE_BITS) - 1;
+
+    private long[] heap = new long[64];
+    private int size;
+    private int limit;
+
+    /**
+     * Start a new frame
+     *
+     * @param limit maximum number of labels to keep, or 0 for no limit
+     */
+    void reset(int limit) {
+        this.limit = limit > 0 ? limit : Integer.MAX_VALUE;
+        size = 0;
+    }
+
+    /**
+     * Offer a candidate
+     *
+     * @param index the caller's index for the candidate, returned by {@link #get}
+     * @param tier one of the TIER_ constants; higher tiers win
+     * @param distance distance to the player in any unit; nearer wins within a tier
+     */
+    void offer(int index, int tier, int distance) {
+        long key = ((long) tier << (DISTANCE_BITS + INDEX_BITS))
+            | ((long) (MAX_DISTANCE - Math.min(Math.max(distance, 0), MAX_DISTANCE)) << INDEX_BITS)
+            | (index & INDEX_MASK);
+
+        if (size < limit) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            heap[size] = key;
+            siftUp(size++);
+        } else if (key > heap[0]) {
+            heap[0] = key;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Order the selected candidates from least to most relevant, so drawing in
+     * order leaves the most relevant labels on top
+     *
+     * @return the number of selected candidates
+     */
+    int finish() {
+        Arrays.sort(heap, 0, size);
+        return size;
+    }
+
+    /**
+     * The caller's index of the i'th selected candidate after {@link #finish}
+     */
+    int get(int i) {
+        return (int) (heap[i] & INDEX_MASK);
+    }
+
+    private void siftUp(int i) {
+        long key = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= key) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = key;
+    }
+
+    private void siftDown(int i) {
+        long key = heap[i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (key <= heap[child]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = key;
+    }
+}
@@ -0,0 +1,219 @@
+package com.dexhonsa;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Bounded LRU cache of pre-composited NPC labels. Each sprite holds the
+ * outlined text and its weakness/aggression icons in one premultiplied image,
+ * so drawing a label costs a single drawImage.
+ *
+ * Lookups reuse a mutable probe key and do not allocate on a hit. Accessed only
+ * from the client thread.
+ */
+class LabelSpriteCache {
+
+    // Room for every distinct label in a crowded scene, since a cyclic scan larger than an LRU cache never hits
+    static final int DEFAULT_CAPACITY = 1024;
+
+    private static final int ICON_PADDING = 4;
+    private static final int ICON_RAISE = 4;
+
+    /**
+     * A composited label. Draw at (anchorX + offsetX, anchorY + offsetY), where
+     * the anchor is the projected point the label is centred above.
+     */
+    static final class Sprite {
+        final BufferedImage image;
+        final int offsetX;
+        final int offsetY;
+
+        private Sprite(BufferedImage image, int offsetX, int offsetY) {
+            this.image = image;
+            this.offsetX = offsetX;
+            this.offsetY = offsetY;
+        }
+    }
+
+    private static final class Key {
+        String text;
+        int rgb;
+        Weakness weakness;
+        boolean aggression;
+        int count;
+        int hash;
+
+        Key set(String text, int rgb, Weakness weakness, boolean aggression, int count) {
+            this.text = text;
+            this.rgb = rgb;
+            this.weakness = weakness;
+            this.aggression = aggression;
+            this.count = count;
+            this.hash = (((text.hashCode() * 31 + rgb) * 31 + Objects.hashCode(weakness)) * 31 + (aggression ? 1 : 0)) * 31 + count;
+            return this;
+        }
+
+        Key copy() {
+            return new Key().set(text, rgb, weakness, aggression, count);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return rgb == other.rgb && count == other.count && aggression == other.aggression && weakness == other.weakness && text.equals(other.text);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private final Map<Key, Sprite> sprites;
+    private final Key probe = new Key();
+
+    private Font font;
+    private long hits;
+    private long misses;
+
+    LabelSpriteCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    LabelSpriteCache(int capacity) {
+        this.sprites = new LinkedHashMap<Key, Sprite>(capacity * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Sprite> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Get the sprite for a label, compositing it on a miss.
+     *
+     * @param weaknessIcon   scaled icon for {@code weakness}, or null if none is shown
+     * @param aggressionIcon scaled aggression icon, or null if none is shown
+     */
+    Sprite get(Graphics2D graphics, String text, Color colour, Weakness weakness, BufferedImage weaknessIcon, BufferedImage aggressionIcon) {
+        return get(graphics, text, colour, weakness, weaknessIcon, aggressionIcon, 1);
+    }
+
+    /**
+     * Get the sprite for a label standing in for {@code count} identical NPCs.
+     * Counts above one are drawn as a suffix, e.g. "Cow (2) x7".
+     */
+    Sprite get(Graphics2D graphics, String text, Color colour, Weakness weakness, BufferedImage weaknessIcon, BufferedImage aggressionIcon, int count) {
+        Font currentFont = graphics.getFont();
+        if (currentFont != font && !currentFont.equals(font)) {
+            // Sprites bake in the font; a different font invalidates all of them
+            sprites.clear();
+            font = currentFont;
+        }
+
+        Weakness shownWeakness = weaknessIcon != null ? weakness : null;
+        Sprite sprite = sprites.get(probe.set(text, colour.getRGB(), shownWeakness, aggressionIcon != null, count));
+        if (sprite != null) {
+            hits++;
+            return sprite;
+        }
+
+        misses++;
+        sprite = composite(graphics, count > 1 ? text + " x" + count : text, colour, weaknessIcon, aggressionIcon);
+        sprites.put(probe.copy(), sprite);
+        return sprite;
+    }
+
+    /**
+     * Drop every sprite, e.g. when config affecting labels or icons changes
+     */
+    void clear() {
+        sprites.clear();
+    }
+
+    int size() {
+        return sprites.size();
+    }
+
+    long getHits() {
+        return hits;
+    }
+
+    long getMisses() {
+        return misses;
+    }
+
+    private static Sprite composite(Graphics2D graphics, String text, Color colour, BufferedImage weaknessIcon, BufferedImage aggressionIcon) {
+        FontMetrics metrics = graphics.getFontMetrics();
+        int textWidth = metrics.stringWidth(text);
+
+        int iconsWidth = 0;
+        if (weaknessIcon != null) iconsWidth += weaknessIcon.getWidth() + ICON_PADDING;
+        if (aggressionIcon != null) iconsWidth += aggressionIcon.getWidth() + ICON_PADDING;
+
+        // Layout relative to the text baseline, matching the per-element drawing it replaces:
+        // icons sit left of the text, vertically centred ICON_RAISE pixels above the baseline
+        int top = -metrics.getAscent();
+        int bottom = metrics.getDescent() + 1; // +1 for the shadow
+        top = Math.min(top, iconTop(weaknessIcon));
+        top = Math.min(top, iconTop(aggressionIcon));
+        bottom = Math.max(bottom, iconBottom(weaknessIcon));
+        bottom = Math.max(bottom, iconBottom(aggressionIcon));
+
+        int width = Math.max(1, iconsWidth + textWidth + 1);
+        int height = Math.max(1, bottom - top);
+        int baseline = -top;
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setFont(graphics.getFont());
+            copyHint(graphics, g, RenderingHints.KEY_TEXT_ANTIALIASING);
+            copyHint(graphics, g, RenderingHints.KEY_FRACTIONALMETRICS);
+
+            int x = 0;
+            if (weaknessIcon != null) {
+                g.drawImage(weaknessIcon, x, baseline + iconTop(weaknessIcon), null);
+                x += weaknessIcon.getWidth() + ICON_PADDING;
+            }
+            if (aggressionIcon != null) {
+                g.drawImage(aggressionIcon, x, baseline + iconTop(aggressionIcon), null);
+                x += aggressionIcon.getWidth() + ICON_PADDING;
+            }
+
+            // Same outline as OverlayUtil.renderTextLocation
+            g.setColor(Color.BLACK);
+            g.drawString(text, x + 1, baseline + 1);
+            g.setColor(new Color(colour.getRGB() | 0xFF000000, true));
+            g.drawString(text, x, baseline);
+        } finally {
+            g.dispose();
+        }
+
+        return new Sprite(image, -(textWidth / 2) - iconsWidth, -baseline);
+    }
+
+    private static void copyHint(Graphics2D from, Graphics2D to, RenderingHints.Key key) {
+        Object value = from.getRenderingHint(key);
+        if (value != null) {
+            to.setRenderingHint(key, value);
+        }
+    }
+
+    private static int iconTop(BufferedImage icon) {
+        return icon == null ? 0 : -icon.getHeight() / 2 - ICON_RAISE;
+    }
+
+    private static int iconBottom(BufferedImage icon) {
+        return icon == null ? 0 : iconTop(icon) + icon.getHeight();
+    }
+}
@@ -0,0 +1,267 @@
+package com.dexhonsa;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.RuneLite;
+
+/**
+ * Learns NPC max hits from the damage they deal to the player. An observed
+ * max hit fills in a missing dataset value, and one above the dataset value
+ * flags that entry as stale; a dataset value at or above every observed hit
+ * is left alone.
+ *
+ * Observed maxima are kept in a dense int table indexed by NPC ID. New maxima
+ * are queued in memory and appended to a file in the RuneLite directory by
+ * {@link #flush()} on a background thread, so recording a hit never touches
+ * the disk. {@link #load()} reads the file back on startup and compacts it
+ * to one entry per NPC, and {@link #clear()} forgets everything.
+ *
+ * <pre>
+ * int    magic "NPCH", version
+ * int    NPC id, max hit; repeated, later entries for an ID win if higher
+ * </pre>
+ */
+@Slf4j
+@Singleton
+class MaxHitLearner {
+
+    static final String FILE = "observed-max-hits.dat";
+
+    /** "NPCH" */
+    private static final int MAGIC = 0x4E504348;
+    private static final int VERSION = 1;
+
+    private final Path file;
+    // Serialises load and flush, which both touch the file
+    private final Object fileLock = new Object();
+
+    // Highest damage seen per NPC ID, 0 when none. Guarded by this.
+    private int[] observed = new int[0];
+    // New maxima not yet written, as id, hit pairs. Guarded by this.
+    private int[] pending = new int[32];
+    private int pendingLength;
+
+    @Inject
+    MaxHitLearner() {
+        this(RuneLite.RUNELITE_DIR.toPath().resolve(NPCDataLoader.OVERRIDE_DIRECTORY).resolve(FILE));
+    }
+
+    MaxHitLearner(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Record damage dealt by an NPC. Called from the client thread; does no I/O.
+     *
+     * @return true if this is a new maximum for the NPC
+     */
+    synchronized boolean record(int npcId, int damage) {
+        if (npcId < 0 || damage <= 0 || damage <= get(npcId)) {
+            return false;
+        }
+        put(npcId, damage);
+        if (pendingLength == pending.length) {
+            pending = Arrays.copyOf(pending, pending.length * 2);
+        }
+        pending[pendingLength++] = npcId;
+        pending[pendingLength++] = damage;
+        return true;
+    }
+
+    /**
+     * Highest damage seen from the NPC, or 0
+     */
+    synchronized int get(int npcId) {
+        return npcId >= 0 && npcId < observed.length ? observed[npcId] : 0;
+    }
+
+    /**
+     * The dataset record, with the observed max hit filled in when the dataset
+     * has none, see {@link NpcRecord#observed(int, int)}, or flagged stale when
+     * the observed max hit is higher, see {@link NpcRecord#stale(int, int)}
+     */
+    int apply(int npcId, int record) {
+        int maxHit = get(npcId);
+        if (maxHit <= 0) {
+            return record;
+        }
+        int datasetMaxHit = NpcRecord.maxHit(record);
+        if (datasetMaxHit <= 0) {
+            return NpcRecord.observed(record, maxHit);
+        }
+        return maxHit > datasetMaxHit ? NpcRecord.stale(record, maxHit) : record;
+    }
+
+    /**
+     * Number of NPCs with an observed max hit
+     */
+    synchronized int size() {
+        int size = 0;
+        for (int maxHit : observed) {
+            if (maxHit > 0) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Read the file, merge it into the observed table and rewrite it with one
+     * entry per NPC. Blocks on I/O, so call this off the client thread. An
+     * unreadable file is logged and replaced.
+     */
+    void load() {
+        synchronized (fileLock) {
+            if (!Files.isRegularFile(file)) {
+                return;
+            }
+
+            long start = System.nanoTime();
+            int[] stored = new int[0];
+            try (InputStream stream = Files.newInputStream(file);
+                 DataInputStream in = new DataInputStream(new BufferedInputStream(stream))) {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    throw new IOException("not an observed max hit file");
+                }
+                while (true) {
+                    int npcId;
+                    int maxHit;
+                    try {
+                        npcId = in.readInt();
+                        maxHit = in.readInt();
+                    } catch (EOFException e) {
+                        // End of file, or a partial entry from an interrupted write
+                        break;
+                    }
+                    if (npcId < 0 || maxHit <= 0) {
+                        continue;
+                    }
+                    if (npcId >= stored.length) {
+                        stored = Arrays.copyOf(stored, Math.max(npcId + 1, stored.length * 2));
+                    }
+                    stored[npcId] = Math.max(stored[npcId], maxHit);
+                }
+            } catch (IOException e) {
+                log.warn("Discarding observed max hits in {}: {}", file, e.getMessage());
+                stored = new int[0];
+            }
+
+            int entries = 0;
+            synchronized (this) {
+                for (int npcId = 0; npcId < stored.length; npcId++) {
+                    if (stored[npcId] > get(npcId)) {
+                        put(npcId, stored[npcId]);
+                    }
+                    if (stored[npcId] > 0) {
+                        entries++;
+                    }
+                }
+            }
+
+            try {
+                Path compacted = file.resolveSibling(FILE + ".tmp");
+                try (OutputStream stream = Files.newOutputStream(compacted);
+                     DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(VERSION);
+                    for (int npcId = 0; npcId < stored.length; npcId++) {
+                        if (stored[npcId] > 0) {
+                            out.writeInt(npcId);
+                            out.writeInt(stored[npcId]);
+                        }
+                    }
+                }
+                Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                log.warn("Unable to compact observed max hits in {}", file, e);
+            }
+            log.debug("Loaded {} observed max hits in {} ms", entries, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    /**
+     * Append queued maxima to the file. Blocks on I/O, so call this off the
+     * client thread. On failure the batch is queued again for the next flush.
+     */
+    void flush() {
+        synchronized (fileLock) {
+            int[] batch;
+            int length;
+            synchronized (this) {
+                if (pendingLength == 0) {
+                    return;
+                }
+                batch = pending;
+                length = pendingLength;
+                pending = new int[32];
+                pendingLength = 0;
+            }
+
+            try {
+                Files.createDirectories(file.getParent());
+                boolean fresh = !Files.exists(file) || Files.size(file) == 0;
+                try (OutputStream stream = Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                     DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+                    if (fresh) {
+                        out.writeInt(MAGIC);
+                        out.writeInt(VERSION);
+                    }
+                    for (int i = 0; i < length; i++) {
+                        out.writeInt(batch[i]);
+                    }
+                }
+            } catch (IOException e) {
+                log.warn("Unable to save observed max hits to {}", file, e);
+                synchronized (this) {
+                    for (int i = 0; i < length; i += 2) {
+                        if (pendingLength == pending.length) {
+                            pending = Arrays.copyOf(pending, pending.length * 2);
+                        }
+                        pending[pendingLength++] = batch[i];
+                        pending[pendingLength++] = batch[i + 1];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Forget every observed max hit and delete the file. Blocks on I/O, so
+     * call this off the client thread.
+     */
+    void clear() {
+        synchronized (fileLock) {
+            synchronized (this) {
+                observed = new int[0];
+                pendingLength = 0;
+            }
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Unable to delete observed max hits in {}", file, e);
+            }
+        }
+    }
+
+    // Guarded by this
+    private void put(int npcId, int maxHit) {
+        if (npcId >= observed.length) {
+            observed = Arrays.copyOf(observed, Math.max(npcId + 1, Math.max(1024, observed.length * 2)));
+        }
+        observed[npcId] = maxHit;
+    }
+}
@@ -1,261 +1,175 @@
 package com.dexhonsa;
 
 import lombok.extern.slf4j.Slf4j;
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.util.HashMap;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Map;
+import net.runelite.client.RuneLite;
 
 @Slf4j
 public class NPCDataLoader {
     
-    private static final String CSV_FILE = "/monsters-complete.csv";
-    private static final Map<Integer, Integer> npcMaxHitData = new HashMap<>();
-    private static final Map<Integer, String> npcWeaknessData = new HashMap<>();
-    private static final Map<Integer, Boolean> npcAggressiveData = new HashMap<>();
-    private static final Map<Integer, String> npcElementalWeaknessData = new HashMap<>();
+    /** Binary dataset compiled from monsters-complete.csv and monsterdata.csv by the compileNpcData Gradle task */
+    static final String DATA_FILE = "/npc-data.bin";
+    /** Optional user corrections in monsters-complete.csv format, under the RuneLite directory */
+    static final String OVERRIDE_DIRECTORY = "npc-level-overlay";
+    static final String OVERRIDE_FILE = "monsters.csv";
+    private static final NpcStatsTable EMPTY = new NpcStatsTable(0);
     
-    static {
-        loadData();
+    // Bundled dataset without overrides, guarded by the class lock
+    private static NpcStatsTable bundled = EMPTY;
+    
+    // Immutable snapshot read by lookups. Each load builds a new table and publishes it
+    // with a single volatile write, so readers never lock or see a half-built table.
+    private static volatile NpcStatsTable npcData = EMPTY;
+    
+    /**
+     * Whether the dataset has been loaded and published. Lookups return no data until then.
+     */
+    public static boolean isLoaded() {
+        return npcData != EMPTY;
     }
     
-    private static void loadData() {
-        try (InputStream inputStream = NPCDataLoader.class.getResourceAsStream(CSV_FILE)) {
-            if (inputStream == null) {
-                log.warn("Could not find file: {}", CSV_FILE);
+    /**
+     * Load the bundled dataset and publish it to readers. Blocks on I/O, so call
+     * this off the client thread.
+     */
+    public static synchronized void loadData() {
+        if (bundled != EMPTY) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            NpcStatsTable loaded = readDataset();
+            if (loaded == null) {
+                log.warn("Could not find file: {}", DATA_FILE);
                 return;
             }
             
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
-                String line;
-                int lineCount = 0;
-                boolean firstLine = true;
-                
-                while ((line = reader.readLine()) != null) {
-                    // Skip header line
-                    if (firstLine) {
-                        firstLine = false;
-                        continue;
-                    }
-                    
-                    String[] fields = parseCSVLine(line);
-                    if (fields.length < 29) { // Need at least 29 columns for all data
-                        continue;
-                    }
-                    
-                    try {
-                        // Extract NPC ID (column 0)
-                        int npcId = Integer.parseInt(fields[0].trim());
-                        
-                        // Extract max hit (column 5)
-                        String maxHitField = fields[5];
-                        if (maxHitField != null && !maxHitField.isEmpty() && !maxHitField.equals("?")) {
-                            try {
-                                int maxHit = Integer.parseInt(maxHitField.trim());
-                                if (maxHit > 0) {
-                                    npcMaxHitData.put(npcId, maxHit);
-                                }
-                            } catch (NumberFormatException e) {
-                                // Skip invalid max hit values
-                            }
-                        }
-                        
-                        // Extract aggressive boolean (column 7)
-                        if (fields.length > 7) {
-                            String aggressiveField = fields[7];
-                            // Only set aggressive to true if the field explicitly contains "true"
-                            // Empty fields or any other value defaults to false
-                            if (aggressiveField != null && aggressiveField.trim().equalsIgnoreCase("true")) {
-                                npcAggressiveData.put(npcId, true);
-                            } else {
-                                npcAggressiveData.put(npcId, false);
-                            }
-                        }
-                        
-                        // Extract elemental weakness (column 28)
-                        String elementalWeakness = null;
-                        if (fields.length > 28) {
-                            String elemField = fields[28];
-                            if (elemField != null && !elemField.trim().isEmpty()) {
-                                elementalWeakness = elemField.trim().toLowerCase();
-                                npcElementalWeaknessData.put(npcId, elementalWeakness);
-                            }
-                        }
-                        
-                        // Extract weakness data from attack_type and defense stats
-                        String attackType = fields[6]; // Column 6: attack_type
-                        
-                        // Get defense stats (columns 23-29)
-                        int defStab = parseDefense(fields[23]);
-                        int defSlash = parseDefense(fields[24]);
-                        int defCrush = parseDefense(fields[25]);
-                        int defMagic = parseDefense(fields[26]);
-                        int defRangedLight = parseDefense(fields[27]);
-                        int defRangedStandard = parseDefense(fields[28]);
-                        int defRangedHeavy = parseDefense(fields[29]);
-                        
-                        String weakness = determineWeakness(attackType, defStab, defSlash, defCrush, defMagic, defRangedLight, defRangedStandard, defRangedHeavy, elementalWeakness);
-                        npcWeaknessData.put(npcId, weakness);
-                        
-                        lineCount++;
-                    } catch (NumberFormatException e) {
-                        // Skip rows with invalid IDs
-                    }
-                }
-                log.info("Loaded {} NPC entries with max-hit, weakness, and aggressive data from CSV", lineCount);
-            }
+            bundled = loaded;
+            npcData = loaded;
+            log.info("Loaded {} NPC entries with max-hit, weakness, and aggressive data in {} ms",
+                loaded.size(), (System.nanoTime() - start) / 1_000_000);
         } catch (IOException e) {
             log.error("Failed to read monster data", e);
         }
     }
     
     /**
-     * Parse defense value, handling empty or invalid values
+     * Path of the optional override file in the RuneLite user directory
      */
-    private static int parseDefense(String defStr) {
-        if (defStr == null || defStr.isEmpty()) {
-            return 0;
-        }
-        try {
-            return Integer.parseInt(defStr.trim());
-        } catch (NumberFormatException e) {
-            return 0;
-        }
+    public static Path getOverridePath() {
+        return RuneLite.RUNELITE_DIR.toPath().resolve(OVERRIDE_DIRECTORY).resolve(OVERRIDE_FILE);
     }
     
     /**
-     * Determine the primary weakness based on defense stats and attack type
+     * Re-read the override file and publish the bundled dataset with its rows
+     * replacing the bundled ones, or the bundled dataset alone if the file is
+     * gone. Blocks on I/O, so call this off the client thread. A malformed file
+     * is logged and leaves the current data in place.
+     *
+     * @return true if a new snapshot was published
      */
-    private static String determineWeakness(String attackType, int defStab, int defSlash, int defCrush, int defMagic, int defRangedLight, int defRangedStandard, int defRangedHeavy, String elementalWeakness) {
-        // First check if there's a specific elemental weakness
-        if (elementalWeakness != null && !elementalWeakness.isEmpty()) {
-            // Valid elemental weaknesses
-            // 1 = Air, 2 = Water, 3 = Earth, 4 = Fire
-            if (elementalWeakness.equals("4") || elementalWeakness.equals("2") ||
-                elementalWeakness.equals("3") || elementalWeakness.equals("1")) {
-
-                // change elemental weakness to corresponding type name
-                switch (elementalWeakness){
-                    case "1":
-                        elementalWeakness = "Air";
-                        break;
-                    case "2":
-                        elementalWeakness = "Water";
-                        break;
-                    case "3":
-                        elementalWeakness = "Earth";
-                        break;
-                    case "4":
-                        elementalWeakness = "Fire";
-                }
-
-                return elementalWeakness;
-            }
-        }
-        
-        // Find the lowest defense stat to determine weakness
-        int minDef = Math.min(Math.min(Math.min(Math.min(defStab, defSlash), defCrush),defMagic), Math.min(defRangedLight,Math.min(defRangedStandard,defRangedHeavy)));
-        
-        // If magic defense is the lowest, check if it's significantly lower
-        if (defMagic == minDef && defMagic < defStab - 10 && defMagic < defSlash - 10 && defMagic < defCrush - 10) {
-            // Return general magic if no specific elemental weakness was provided
-            return "magic";
-        }
-        
-        // Check if the monster uses magic attacks but no specific elemental weakness
-        if (attackType != null && attackType.toLowerCase().contains("magic") && (elementalWeakness == null || elementalWeakness.isEmpty())) {
-            // Default to general magic for magic users without specific elemental weakness
-            return "magic";
-        }
-        
-        // If ranged defense is the lowest
-        if(defRangedStandard < minDef - 5 || defRangedLight < minDef -5 || defRangedHeavy < minDef - 5) {
-            // what range is lowest
-            if (defRangedStandard <= defRangedLight && defRangedStandard <= defRangedHeavy) {
-                return "ranged";
-            }
-            else if (defRangedLight <= defRangedHeavy) {
-                return "lightranged";
-            }
-            else {
-                return "heavyranged";
+    public static synchronized boolean loadOverrides(Path file) {
+        long start = System.nanoTime();
+        if (!Files.isRegularFile(file)) {
+            if (npcData == bundled) {
+                return false;
             }
+            npcData = bundled;
+            log.info("NPC data override {} removed, using bundled data", file);
+            return true;
         }
         
-        // Otherwise, determine melee weakness
-        if (defStab == minDef) {
-            return "stab";
-        } else if (defSlash == minDef) {
-            return "slash";
-        } else if (defCrush == minDef) {
-            return "crush";
+        NpcStatsTable overrides;
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            overrides = NpcCsvParser.parse(reader);
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Ignoring NPC data override {}: {}", file, e.getMessage());
+            return false;
         }
         
-        // Default to slash if no clear weakness
-        return "slash";
+        npcData = bundled.merge(overrides);
+        log.info("Applied {} NPC overrides from {} in {} ms",
+            overrides.size(), file, (System.nanoTime() - start) / 1_000_000);
+        return true;
     }
     
     /**
-     * Parse CSV line handling quoted fields
+     * Read and decode the bundled dataset without publishing it
+     *
+     * @return the dataset, or null if the resource is missing
      */
-    private static String[] parseCSVLine(String line) {
-        StringBuilder sb = new StringBuilder();
-        boolean inQuotes = false;
-        boolean startCollectChar = false;
-        char[] chars = line.toCharArray();
-        
-        for (char ch : chars) {
-            if (inQuotes) {
-                startCollectChar = true;
-                if (ch == '\"') {
-                    inQuotes = false;
-                } else {
-                    sb.append(ch);
-                }
-            } else {
-                if (ch == '\"') {
-                    inQuotes = true;
-                    if (startCollectChar) {
-                        sb.append('\"');
-                    }
-                } else if (ch == ',') {
-                    sb.append('|'); // Use a different delimiter to split later
-                } else {
-                    sb.append(ch);
-                }
+    static NpcStatsTable readDataset() throws IOException {
+        try (InputStream inputStream = NPCDataLoader.class.getResourceAsStream(DATA_FILE)) {
+            if (inputStream == null) {
+                return null;
             }
+            return NpcStatsTable.read(ByteBuffer.wrap(inputStream.readAllBytes()));
         }
-        
-        return sb.toString().split("\\|");
+    }
+    
+    /**
+     * The currently published dataset. Never modified once published, so it
+     * can be read without locking for as long as the caller likes.
+     */
+    static NpcStatsTable snapshot() {
+        return npcData;
+    }
+    
+    /**
+     * Get the packed {@link NpcRecord} for a specific NPC ID in a single lookup
+     */
+    public static int getRecord(int npcId) {
+        return npcData.get(npcId);
+    }
+    
+    /**
+     * Get the packed {@link NpcRecord} for an NPC, falling back to the name index
+     * when the ID is unknown, e.g. for new variants of existing monsters. Does not
+     * allocate.
+     *
+     * @param name the NPC's name as returned by {@code NPCComposition.getName()}, may be null
+     */
+    public static int getRecord(int npcId, String name) {
+        NpcStatsTable data = npcData;
+        int record = data.get(npcId);
+        return NpcRecord.isPresent(record) ? record : data.getByName(name);
     }
     
     /**
      * Get max hit for a specific NPC ID
      */
     public static Integer getMaxHit(int npcId) {
-        return npcMaxHitData.get(npcId);
+        int maxHit = NpcRecord.maxHit(npcData.get(npcId));
+        return maxHit > 0 ? maxHit : null;
     }
     
     /**
-     * Get all max hit data
+     * Get all max hit data as a read-only view of the current dataset. The
+     * view does not follow later reloads; call again for fresh data.
      */
     public static Map<Integer, Integer> getAllMaxHitData() {
-        return new HashMap<>(npcMaxHitData);
+        return npcData.maxHitView();
     }
     
     /**
      * Get weakness for a specific NPC ID
      */
     public static String getWeakness(int npcId) {
-        return npcWeaknessData.get(npcId);
+        Weakness weakness = NpcRecord.weakness(npcData.get(npcId));
+        return weakness != null ? weakness.getKey() : null;
     }
     
     /**
      * Check if a specific NPC is aggressive
      */
     public static boolean isAggressive(int npcId) {
-        return npcAggressiveData.getOrDefault(npcId, false);
+        return NpcRecord.isAggressive(npcData.get(npcId));
     }
 } 
\ No newline at end of file
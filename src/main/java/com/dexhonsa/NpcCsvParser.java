@@ -0,0 +1,222 @@
+package com.dexhonsa;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Parses monsters-complete.csv into an {@link NpcStatsTable}, classifying each
+ * NPC's weakness along the way. Used at build time by the dataset compiler and
+ * at runtime for the user's override file; either way malformed rows are
+ * rejected rather than skipped.
+ *
+ * Columns are bound by header name once, and every row is read through a
+ * streaming {@link CsvReader} without creating substrings.
+ */
+final class NpcCsvParser {
+
+    /**
+     * Column indices resolved from the header row
+     */
+    private static final class Columns {
+        final int count;
+        final int id;
+        final int name;
+        final int maxHit;
+        final int attackType;
+        final int aggressive;
+        final int alwaysAggressive;
+        final int defStab;
+        final int defSlash;
+        final int defCrush;
+        final int defMagic;
+        final int elementalType;
+        final int defRangedLight;
+        final int defRangedStandard;
+        final int defRangedHeavy;
+
+        Columns(CsvReader csv) {
+            count = csv.getFieldCount();
+            id = find(csv, "id");
+            name = findOptional(csv, "name");
+            maxHit = find(csv, "max_hit");
+            attackType = find(csv, "attack_type/0");
+            aggressive = find(csv, "aggressive");
+            alwaysAggressive = findOptional(csv, "always_aggressive");
+            defStab = find(csv, "defence_stab");
+            defSlash = find(csv, "defence_slash");
+            defCrush = find(csv, "defence_crush");
+            defMagic = find(csv, "defence_magic");
+            elementalType = find(csv, "elemental_weakness_type");
+            defRangedLight = find(csv, "defence_ranged_light");
+            defRangedStandard = find(csv, "defence_ranged_standard");
+            defRangedHeavy = find(csv, "defence_ranged_heavy");
+        }
+
+        private static int find(CsvReader csv, String name) {
+            int index = findOptional(csv, name);
+            if (index < 0) {
+                throw new IllegalArgumentException("NPC data is missing column '" + name + "'");
+            }
+            return index;
+        }
+
+        private static int findOptional(CsvReader csv, String name) {
+            for (int i = 0; i < csv.getFieldCount(); i++) {
+                if (csv.equalsIgnoreCase(i, name)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    private NpcCsvParser() {
+    }
+
+    /**
+     * Parse the whole CSV, failing on the first malformed row
+     *
+     * @throws IllegalArgumentException if a row is malformed or an NPC id is repeated
+     */
+    static NpcStatsTable parse(Reader source) throws IOException {
+        NpcStatsTable npcData = new NpcStatsTable(16384);
+        CsvReader csv = new CsvReader(source);
+        if (!csv.nextRow()) {
+            throw new IllegalArgumentException("NPC data is empty");
+        }
+        Columns col = new Columns(csv);
+        
+        while (csv.nextRow()) {
+            if (csv.getFieldCount() == 1 && csv.isBlank(0)) {
+                continue;
+            }
+            if (csv.getFieldCount() != col.count) {
+                throw malformed(csv, "expected " + col.count + " columns but found " + csv.getFieldCount());
+            }
+            
+            int npcId = parseInt(csv, col.id, "id");
+            if (npcId < 0 || npcId > NpcStatsTable.MAX_ID) {
+                throw malformed(csv, "NPC id " + npcId + " is outside 0-" + NpcStatsTable.MAX_ID);
+            }
+            if (NpcRecord.isPresent(npcData.get(npcId))) {
+                throw malformed(csv, "duplicate NPC id " + npcId);
+            }
+            
+            // Max hit, 0 when unknown
+            int maxHit = 0;
+            if (!csv.isBlank(col.maxHit) && !csv.equalsIgnoreCase(col.maxHit, "?")) {
+                maxHit = Math.max(0, parseInt(csv, col.maxHit, "max_hit"));
+            }
+            
+            // Only set aggressive to true if the field explicitly contains "true"
+            // Empty fields or any other value defaults to false
+            boolean aggressive = csv.equalsIgnoreCase(col.aggressive, "true");
+            // Optional column for NPCs that ignore the combat level rule and tolerance
+            boolean alwaysAggressive = col.alwaysAggressive >= 0 && csv.equalsIgnoreCase(col.alwaysAggressive, "true");
+            boolean magicAttacker = csv.containsIgnoreCase(col.attackType, "magic");
+            
+            Weakness weakness = determineWeakness(magicAttacker,
+                parseOptionalInt(csv, col.defStab, "defence_stab"),
+                parseOptionalInt(csv, col.defSlash, "defence_slash"),
+                parseOptionalInt(csv, col.defCrush, "defence_crush"),
+                parseOptionalInt(csv, col.defMagic, "defence_magic"),
+                parseOptionalInt(csv, col.defRangedLight, "defence_ranged_light"),
+                parseOptionalInt(csv, col.defRangedStandard, "defence_ranged_standard"),
+                parseOptionalInt(csv, col.defRangedHeavy, "defence_ranged_heavy"),
+                parseOptionalInt(csv, col.elementalType, "elemental_weakness_type"));
+            int record = NpcRecord.pack(maxHit, weakness, aggressive, alwaysAggressive);
+            npcData.put(npcId, record);
+            
+            // The first ID listed under a name stands in for unknown IDs with that name
+            if (col.name >= 0 && !csv.isBlank(col.name)) {
+                String name = csv.getString(col.name);
+                if (!NpcRecord.isPresent(npcData.getByName(name))) {
+                    npcData.putName(name, record);
+                }
+            }
+        }
+        npcData.trim();
+        return npcData;
+    }
+    
+    private static IllegalArgumentException malformed(CsvReader csv, String reason) {
+        return new IllegalArgumentException("Malformed NPC data at line " + csv.getLine() + ": " + reason);
+    }
+    
+    private static int parseInt(CsvReader csv, int field, String column) {
+        try {
+            return csv.getInt(field);
+        } catch (NumberFormatException e) {
+            throw malformed(csv, "invalid " + column + " '" + csv.getString(field) + "'");
+        }
+    }
+    
+    /**
+     * Parse a numeric stat, treating empty values as 0
+     */
+    private static int parseOptionalInt(CsvReader csv, int field, String column) {
+        return csv.isBlank(field) ? 0 : parseInt(csv, field, column);
+    }
+    
+    /**
+     * Determine the primary weakness based on defense stats and attack type
+     *
+     * @param elementalWeakness elemental_weakness_type code, 0 for none
+     */
+    static Weakness determineWeakness(boolean magicAttacker, int defStab, int defSlash, int defCrush, int defMagic, int defRangedLight, int defRangedStandard, int defRangedHeavy, int elementalWeakness) {
+        // First check if there's a specific elemental weakness
+        // Valid elemental weaknesses
+        // 1 = Air, 2 = Water, 3 = Earth, 4 = Fire, anything else = none
+        switch (elementalWeakness) {
+            case 1:
+                return Weakness.AIR;
+            case 2:
+                return Weakness.WATER;
+            case 3:
+                return Weakness.EARTH;
+            case 4:
+                return Weakness.FIRE;
+        }
+        
+        // Find the lowest defense stat to determine weakness
+        int minDef = Math.min(Math.min(Math.min(Math.min(defStab, defSlash), defCrush),defMagic), Math.min(defRangedLight,Math.min(defRangedStandard,defRangedHeavy)));
+        
+        // If magic defense is the lowest, check if it's significantly lower
+        if (defMagic == minDef && defMagic < defStab - 10 && defMagic < defSlash - 10 && defMagic < defCrush - 10) {
+            // Return general magic if no specific elemental weakness was provided
+            return Weakness.MAGIC;
+        }
+        
+        // Check if the monster uses magic attacks but no specific elemental weakness
+        if (magicAttacker) {
+            // Default to general magic for magic users without specific elemental weakness
+            return Weakness.MAGIC;
+        }
+        
+        // If ranged defense is the lowest
+        if(defRangedStandard < minDef - 5 || defRangedLight < minDef -5 || defRangedHeavy < minDef - 5) {
+            // what range is lowest
+            if (defRangedStandard <= defRangedLight && defRangedStandard <= defRangedHeavy) {
+                return Weakness.RANGED;
+            }
+            else if (defRangedLight <= defRangedHeavy) {
+                return Weakness.LIGHT_RANGED;
+            }
+            else {
+                return Weakness.HEAVY_RANGED;
+            }
+        }
+        
+        // Otherwise, determine melee weakness
+        if (defStab == minDef) {
+            return Weakness.STAB;
+        } else if (defSlash == minDef) {
+            return Weakness.SLASH;
+        } else if (defCrush == minDef) {
+            return Weakness.CRUSH;
+        }
+        
+        // Default to slash if no clear weakness
+        return Weakness.SLASH;
+    }
+}
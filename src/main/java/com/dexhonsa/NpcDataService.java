@@ -0,0 +1,147 @@
+package com.dexhonsa;
+
+import java.util.Map;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Injectable access to the NPC dataset and stats for the overlay and for
+ * other plugins.
+ *
+ * Each call reads one published snapshot of the dataset, so a bulk lookup
+ * never mixes records from before and after an override reload. Bulk lookups
+ * fill arrays supplied by the caller, {@link #getMaxHits()} is a read-only
+ * view rather than a copy, and {@link #forEachRecord(RecordVisitor)} walks the
+ * dataset without allocating.
+ */
+@Singleton
+public class NpcDataService {
+
+    /**
+     * Receives each NPC in the dataset from {@link #forEachRecord(RecordVisitor)}
+     */
+    public interface RecordVisitor {
+        /**
+         * @param record packed {@link NpcRecord}, always present
+         */
+        void visit(int npcId, int record);
+    }
+
+    private final NpcStatsStore statsStore;
+
+    @Inject
+    NpcDataService(NpcStatsStore statsStore) {
+        this.statsStore = statsStore;
+    }
+
+    /**
+     * Whether the dataset has been loaded. Lookups return no data until then.
+     */
+    public boolean isLoaded() {
+        return NPCDataLoader.isLoaded();
+    }
+
+    /**
+     * Packed {@link NpcRecord} for the NPC, or {@link NpcRecord#MISSING}
+     */
+    public int getRecord(int npcId) {
+        return NPCDataLoader.snapshot().get(npcId);
+    }
+
+    /**
+     * Packed {@link NpcRecord} for the NPC, falling back to the name index when
+     * the ID is unknown
+     *
+     * @param name the NPC's name as returned by {@code NPCComposition.getName()}, may be null
+     */
+    public int getRecord(int npcId, String name) {
+        NpcStatsTable data = NPCDataLoader.snapshot();
+        int record = data.get(npcId);
+        return NpcRecord.isPresent(record) ? record : data.getByName(name);
+    }
+
+    /**
+     * Fill {@code records[i]} with the packed record for {@code npcIds[i]}
+     */
+    public void getRecords(int[] npcIds, int[] records) {
+        getRecords(npcIds, null, npcIds.length, records);
+    }
+
+    /**
+     * Fill {@code records[i]} with the packed record for the first
+     * {@code count} NPCs, falling back to {@code names[i]} when an ID is unknown
+     *
+     * @param names NPC names parallel to {@code npcIds}, or null for no fallback
+     */
+    public void getRecords(int[] npcIds, String[] names, int count, int[] records) {
+        checkLength(count, records);
+        NpcStatsTable data = NPCDataLoader.snapshot();
+        for (int i = 0; i < count; i++) {
+            int record = data.get(npcIds[i]);
+            if (!NpcRecord.isPresent(record) && names != null) {
+                record = data.getByName(names[i]);
+            }
+            records[i] = record;
+        }
+    }
+
+    /**
+     * Fill {@code maxHits[i]} with the max hit of {@code npcIds[i]}, or 0 if unknown
+     */
+    public void getMaxHits(int[] npcIds, int[] maxHits) {
+        checkLength(npcIds.length, maxHits);
+        NpcStatsTable data = NPCDataLoader.snapshot();
+        for (int i = 0; i < npcIds.length; i++) {
+            maxHits[i] = NpcRecord.maxHit(data.get(npcIds[i]));
+        }
+    }
+
+    /**
+     * Integer or boolean (1 or 0) value of a stat, see {@link NpcStatsStore#getInt(int, NpcStat)}
+     */
+    public int getStat(int npcId, NpcStat stat) {
+        return statsStore.getInt(npcId, stat);
+    }
+
+    /**
+     * Fill {@code values[i]} with a stat of {@code npcIds[i]}, or
+     * {@link NpcStatsStore#MISSING} if the NPC is unknown, the value is blank
+     * or the column is not resident
+     */
+    public void getStats(int[] npcIds, NpcStat stat, int[] values) {
+        checkLength(npcIds.length, values);
+        statsStore.getInts(npcIds, npcIds.length, stat, values);
+    }
+
+    /**
+     * Read-only view of NPC ID to max hit for every NPC with a known max hit.
+     * The view keeps the dataset it was taken from; call again after a reload.
+     */
+    public Map<Integer, Integer> getMaxHits() {
+        return NPCDataLoader.snapshot().maxHitView();
+    }
+
+    /**
+     * Visit every NPC in the dataset in ID order, without allocating
+     *
+     * @return the number of NPCs visited
+     */
+    public int forEachRecord(RecordVisitor visitor) {
+        NpcStatsTable data = NPCDataLoader.snapshot();
+        int visited = 0;
+        for (int npcId = 0; npcId < data.capacity(); npcId++) {
+            int record = data.get(npcId);
+            if (NpcRecord.isPresent(record)) {
+                visitor.visit(npcId, record);
+                visited++;
+            }
+        }
+        return visited;
+    }
+
+    private static void checkLength(int count, int[] out) {
+        if (out.length < count) {
+            throw new IllegalArgumentException("Output array holds " + out.length + " of " + count + " values");
+        }
+    }
+}
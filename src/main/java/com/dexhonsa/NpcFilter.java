@@ -0,0 +1,184 @@
+package com.dexhonsa;
+
+import java.util.BitSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Include and exclude rules for which NPCs get overlays, compiled from the
+ * comma-separated lists in {@link NpcLevelConfig}.
+ *
+ * Each entry is an NPC ID ({@code 2005}), an inclusive ID range
+ * ({@code 2005-2010}) or a name, where {@code *} matches any run of characters
+ * and case is ignored ({@code *demon}). IDs are compiled into bitsets and all
+ * names of a list into one pattern. An NPC passes if the include list is empty
+ * or matches it, and the exclude list does not match it; exclude wins.
+ *
+ * The result for a composition ID is memoised on first use, so later checks
+ * for that ID are a single bit test. Compiled once per config snapshot, so the
+ * memo never outlives the rules it was computed from.
+ *
+ * Accessed only from the client thread.
+ */
+@Slf4j
+final class NpcFilter {
+
+    /** Largest ID accepted in a rule, so a stray range cannot allocate a huge bitset */
+    static final int MAX_ID = 65_535;
+
+    private static final Pattern ID_RANGE = Pattern.compile("(\\d+)(?:\\s*-\\s*(\\d+))?");
+
+    private static final NpcFilter ALLOW_ALL = new NpcFilter(Rules.NONE, Rules.NONE);
+
+    private final Rules include;
+    private final Rules exclude;
+
+    // Composition IDs whose result is in allowed
+    private final BitSet decided = new BitSet();
+    private final BitSet allowed = new BitSet();
+
+    private NpcFilter(Rules include, Rules exclude) {
+        this.include = include;
+        this.exclude = exclude;
+    }
+
+    /**
+     * Compile the include and exclude lists. Blank lists and entries are
+     * ignored, as are IDs above {@link #MAX_ID} and ranges that end before
+     * they start.
+     */
+    static NpcFilter compile(String include, String exclude) {
+        Rules includeRules = Rules.parse(include);
+        Rules excludeRules = Rules.parse(exclude);
+        if (includeRules == Rules.NONE && excludeRules == Rules.NONE) {
+            return ALLOW_ALL;
+        }
+        return new NpcFilter(includeRules, excludeRules);
+    }
+
+    /**
+     * Whether any rules are set; when false every NPC passes
+     */
+    boolean isActive() {
+        return this != ALLOW_ALL;
+    }
+
+    /**
+     * Whether the NPC passes the filter
+     *
+     * @param compositionId ID of the NPC's current composition
+     * @param name name of that composition, may be null
+     */
+    boolean allows(int compositionId, String name) {
+        if (this == ALLOW_ALL) {
+            return true;
+        }
+        if (compositionId < 0) {
+            return evaluate(compositionId, name);
+        }
+        if (decided.get(compositionId)) {
+            return allowed.get(compositionId);
+        }
+        boolean result = evaluate(compositionId, name);
+        allowed.set(compositionId, result);
+        decided.set(compositionId);
+        return result;
+    }
+
+    /**
+     * Number of composition IDs with a memoised result
+     */
+    int memoised() {
+        return decided.cardinality();
+    }
+
+    private boolean evaluate(int id, String name) {
+        if (include != Rules.NONE && !include.matches(id, name)) {
+            return false;
+        }
+        return !exclude.matches(id, name);
+    }
+
+    /**
+     * One compiled list: a bitset of IDs and a single pattern of all names
+     */
+    private static final class Rules {
+        static final Rules NONE = new Rules(new BitSet(), null);
+
+        final BitSet ids;
+        // null when the list has no names
+        final Pattern names;
+
+        private Rules(BitSet ids, Pattern names) {
+            this.ids = ids;
+            this.names = names;
+        }
+
+        boolean matches(int id, String name) {
+            if (id >= 0 && ids.get(id)) {
+                return true;
+            }
+            return names != null && name != null && names.matcher(name.replace('\u00A0', ' ').trim()).matches();
+        }
+
+        static Rules parse(String list) {
+            if (list == null || list.trim().isEmpty()) {
+                return NONE;
+            }
+            BitSet ids = new BitSet();
+            StringBuilder names = new StringBuilder();
+            for (String entry : list.split("[,\\n]")) {
+                entry = entry.trim();
+                if (entry.isEmpty()) {
+                    continue;
+                }
+                Matcher range = ID_RANGE.matcher(entry);
+                if (range.matches()) {
+                    addIds(ids, entry, range.group(1), range.group(2));
+                } else {
+                    if (names.length() > 0) {
+                        names.append('|');
+                    }
+                    names.append(glob(entry));
+                }
+            }
+            if (ids.isEmpty() && names.length() == 0) {
+                return NONE;
+            }
+            Pattern pattern = names.length() == 0 ? null
+                : Pattern.compile(names.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+            return new Rules(ids, pattern);
+        }
+
+        private static void addIds(BitSet ids, String entry, String from, String to) {
+            // Digit runs too long for an int are over MAX_ID anyway
+            int first = from.length() > 9 ? Integer.MAX_VALUE : Integer.parseInt(from);
+            int last = to == null ? first : to.length() > 9 ? Integer.MAX_VALUE : Integer.parseInt(to);
+            if (last > MAX_ID || last < first) {
+                log.warn("Ignoring NPC filter entry {}", entry);
+                return;
+            }
+            ids.set(first, last + 1);
+        }
+
+        /**
+         * Regex for a name with {@code *} wildcards, every other character literal
+         */
+        private static String glob(String name) {
+            StringBuilder regex = new StringBuilder("(?:");
+            int start = 0;
+            for (int star = name.indexOf('*'); star >= 0; star = name.indexOf('*', start)) {
+                if (star > start) {
+                    regex.append(Pattern.quote(name.substring(start, star)));
+                }
+                regex.append(".*");
+                start = star + 1;
+            }
+            if (start < name.length()) {
+                regex.append(Pattern.quote(name.substring(start)));
+            }
+            return regex.append(')').toString();
+        }
+    }
+}
@@ -1,16 +1,29 @@
 package com.dexhonsa;
 
 import java.awt.Color;
+import net.runelite.client.config.Alpha;
 import net.runelite.client.config.Config;
 import net.runelite.client.config.ConfigGroup;
 import net.runelite.client.config.ConfigItem;
+import net.runelite.client.config.ConfigSection;
+import net.runelite.client.config.Range;
 
 /**
  * Configuration for the NPC Level Overlay plugin.
  */
-@ConfigGroup("npclevel")
+@ConfigGroup(NpcLevelConfig.GROUP)
 public interface NpcLevelConfig extends Config
 {
+    String GROUP = "npclevel";
+
+    @ConfigSection(
+            name = "Label colours",
+            description = "Colours of the level labels, by the NPC's level relative to yours.",
+            position = 100,
+            closedByDefault = true
+    )
+    String colourSection = "colours";
+
     enum IconSize
     {
         XS("Extra Small", 0.5),
@@ -38,6 +51,26 @@ public interface NpcLevelConfig extends Config
             return name;
         }
     }
+    enum DangerDisplay
+    {
+        OFF("Off"),
+        FLAG("Flag max hit"),
+        COLOUR("Colour label");
+
+        private final String name;
+
+        DangerDisplay(String name)
+        {
+            this.name = name;
+        }
+
+        @Override
+        public String toString()
+        {
+            return name;
+        }
+    }
+
     @ConfigItem(
             keyName = "showLevel",
             name = "Show level",
@@ -62,7 +95,7 @@ public interface NpcLevelConfig extends Config
             keyName = "textColorGreen",
             name = "Custom Green",
             description = "Override the default green colour for lower‑level NPCs.",
-            hidden = true
+            section = colourSection
     )
     default Color textColorGreen() { return new Color(0x00FF00); }
 
@@ -70,7 +103,7 @@ public interface NpcLevelConfig extends Config
             keyName = "textColorYellow",
             name = "Custom Yellow",
             description = "Override the default yellow colour for equal‑level NPCs.",
-            hidden = true
+            section = colourSection
     )
     default Color textColorYellow() { return new Color(0xFFFF00); }
 
@@ -78,7 +111,7 @@ public interface NpcLevelConfig extends Config
             keyName = "textColorOrange",
             name = "Custom Orange",
             description = "Override the default orange colour for slightly‑higher NPCs.",
-            hidden = true
+            section = colourSection
     )
     default Color textColorOrange() { return new Color(0xFF981F); }
 
@@ -86,7 +119,7 @@ public interface NpcLevelConfig extends Config
             keyName = "textColorRed",
             name = "Custom Red",
             description = "Override the default red colour for much‑higher NPCs.",
-            hidden = true
+            section = colourSection
     )
     default Color textColorRed() { return new Color(0xFF0000); }
 
@@ -100,6 +133,46 @@ public interface NpcLevelConfig extends Config
         return true;
     }
 
+    @ConfigItem(
+            keyName = "showHitpoints",
+            name = "Show Hitpoints",
+            description = "Display the NPC's hitpoints alongside its level."
+    )
+    default boolean showHitpoints()
+    {
+        return false;
+    }
+
+    @ConfigItem(
+            keyName = "learnMaxHits",
+            name = "Learn max hits",
+            description = "Remember the highest hit each NPC deals you. Shown marked with ~ when the NPC's max hit is unknown, and with + when it is above the NPC data. Saved in the .runelite folder and kept when this is turned off; type ::forgetmaxhits to delete it."
+    )
+    default boolean learnMaxHits()
+    {
+        return false;
+    }
+
+    @ConfigItem(
+            keyName = "showStatTooltip",
+            name = "Stat Tooltip",
+            description = "Show the NPC's full stat block in a tooltip when hovering over it."
+    )
+    default boolean showStatTooltip()
+    {
+        return false;
+    }
+
+    @ConfigItem(
+            keyName = "dangerDisplay",
+            name = "Danger rating",
+            description = "Rate each NPC's max hit against your current Hitpoints. Flag adds ! (risky), !! (can kill in two hits) or !!! (can kill in one hit); Colour tints the label green to red instead of by level."
+    )
+    default DangerDisplay dangerDisplay()
+    {
+        return DangerDisplay.OFF;
+    }
+
     @ConfigItem(
             keyName = "showWeaknessIcon",
             name = "Show Weakness Icon",
@@ -120,6 +193,38 @@ public interface NpcLevelConfig extends Config
         return true;
     }
 
+    @ConfigItem(
+            keyName = "showAggressionArea",
+            name = "Show Aggression Area",
+            description = "Shade the tiles around NPCs that will attack you, showing where they will aggro you from."
+    )
+    default boolean showAggressionArea()
+    {
+        return false;
+    }
+
+    @Range(min = 1, max = 16)
+    @ConfigItem(
+            keyName = "aggressionRadius",
+            name = "Aggression Radius",
+            description = "How many tiles around an aggressive NPC to shade. The NPC data has no per-NPC range, so one radius is used for all."
+    )
+    default int aggressionRadius()
+    {
+        return 4;
+    }
+
+    @Alpha
+    @ConfigItem(
+            keyName = "aggressionAreaColor",
+            name = "Aggression Area Colour",
+            description = "Outline colour of the aggression area; the tiles are shaded with a fainter version of it."
+    )
+    default Color aggressionAreaColor()
+    {
+        return new Color(255, 64, 64, 160);
+    }
+
     @ConfigItem(
             keyName = "iconSize",
             name = "Icon Size",
@@ -149,4 +254,86 @@ public interface NpcLevelConfig extends Config
     {
         return false;
     }
+
+    @ConfigItem(
+            keyName = "includeNpcs",
+            name = "Only show NPCs",
+            description = "Comma-separated NPC names, IDs or ID ranges to show overlays for, e.g. \"*demon, Cow, 2005-2010\". * matches anything. Empty shows all NPCs."
+    )
+    default String includeNpcs()
+    {
+        return "";
+    }
+
+    @ConfigItem(
+            keyName = "excludeNpcs",
+            name = "Hide NPCs",
+            description = "Comma-separated NPC names, IDs or ID ranges to never show overlays for, e.g. \"Rat, *chicken\". Takes precedence over the list above."
+    )
+    default String excludeNpcs()
+    {
+        return "";
+    }
+
+    @Range(max = 104)
+    @ConfigItem(
+            keyName = "maxDrawDistance",
+            name = "Max draw distance",
+            description = "Only display overlays for NPCs within this many tiles of you (0 = no limit)."
+    )
+    default int maxDrawDistance()
+    {
+        return 0;
+    }
+
+    @ConfigItem(
+            keyName = "maxLabelsPerFrame",
+            name = "Max labels",
+            description = "Draw at most this many overlays, preferring NPCs fighting you, then aggressive ones, then the nearest (0 = no limit)."
+    )
+    default int maxLabelsPerFrame()
+    {
+        return 0;
+    }
+
+    @ConfigItem(
+            keyName = "declutterLabels",
+            name = "Declutter labels",
+            description = "Combine identical NPCs on the same tile into one label (e.g. \"Cow (2) x7\") and hide labels that would overlap a more relevant one."
+    )
+    default boolean declutterLabels()
+    {
+        return true;
+    }
+
+    @Range(max = 20_000)
+    @ConfigItem(
+            keyName = "frameBudget",
+            name = "Frame budget (µs)",
+            description = "When drawing overlays takes longer than this per frame, reduce detail step by step: drop icons, then refresh labels every few frames, then update labels of NPCs that are not fighting you in turns. Detail returns once there is headroom again (0 = off)."
+    )
+    default int frameBudget()
+    {
+        return 0;
+    }
+
+    @ConfigItem(
+            keyName = "recordPerformance",
+            name = "Record performance stats",
+            description = "Record overlay render times and counters, and expose them over JMX."
+    )
+    default boolean recordPerformance()
+    {
+        return false;
+    }
+
+    @ConfigItem(
+            keyName = "showPerformancePanel",
+            name = "Show performance panel",
+            description = "Show an in-client panel with the recorded overlay performance stats."
+    )
+    default boolean showPerformancePanel()
+    {
+        return false;
+    }
 }
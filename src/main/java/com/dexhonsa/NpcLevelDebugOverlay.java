@@ -0,0 +1,57 @@
+package com.dexhonsa;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import javax.inject.Inject;
+import net.runelite.client.ui.overlay.OverlayPanel;
+import net.runelite.client.ui.overlay.OverlayPosition;
+import net.runelite.client.ui.overlay.components.LineComponent;
+import net.runelite.client.ui.overlay.components.TitleComponent;
+
+/**
+ * Optional panel showing the stats recorded by {@link OverlayStats}.
+ */
+class NpcLevelDebugOverlay extends OverlayPanel
+{
+    private final NpcLevelConfig config;
+    private final OverlayStats stats;
+
+    @Inject
+    NpcLevelDebugOverlay(NpcLevelConfig config, OverlayStats stats)
+    {
+        this.config = config;
+        this.stats = stats;
+        setPosition(OverlayPosition.TOP_LEFT);
+    }
+
+    @Override
+    public Dimension render(Graphics2D graphics)
+    {
+        if (!config.showPerformancePanel() || !stats.isEnabled())
+        {
+            return null;
+        }
+
+        long frames = Math.max(1, stats.getFrames());
+        panelComponent.getChildren().add(TitleComponent.builder().text("NPC Level Overlay").build());
+        addLine("Render p50", stats.getRenderP50Micros() + " us");
+        addLine("Render p99", stats.getRenderP99Micros() + " us");
+        addLine("Render max", stats.getRenderMaxMicros() + " us");
+        addLine("NPCs / frame", stats.getNpcsDrawn() / frames + " of " + stats.getNpcsConsidered() / frames);
+        addLine("Lookup misses", Long.toString(stats.getLookupMisses()));
+        addLine("Label cache", percent(stats.getLabelCacheHitRate()));
+        addLine("Icon cache", percent(stats.getIconCacheHitRate()));
+        addLine("Detail", stats.getDetail());
+        return super.render(graphics);
+    }
+
+    private void addLine(String left, String right)
+    {
+        panelComponent.getChildren().add(LineComponent.builder().left(left).right(right).build());
+    }
+
+    private static String percent(double rate)
+    {
+        return String.format("%.1f%%", rate * 100);
+    }
+}
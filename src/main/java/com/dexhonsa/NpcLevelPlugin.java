@@ -9,6 +9,7 @@
 package com.dexhonsa;
 
 import com.google.inject.Provides;
+import java.awt.AlphaComposite;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics2D;
@@ -16,15 +17,39 @@ import javax.inject.Inject;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.*;
 import net.runelite.api.coords.LocalPoint;
+import net.runelite.api.events.CommandExecuted;
+import net.runelite.api.events.GameStateChanged;
+import net.runelite.api.events.GameTick;
+import net.runelite.api.events.HitsplatApplied;
+import net.runelite.api.events.NpcChanged;
+import net.runelite.api.events.NpcDespawned;
+import net.runelite.api.events.NpcSpawned;
+import net.runelite.api.events.StatChanged;
+import net.runelite.api.events.VarbitChanged;
 import net.runelite.api.Point;
+import net.runelite.client.callback.ClientThread;
 import net.runelite.client.config.ConfigManager;
+import net.runelite.client.eventbus.Subscribe;
+import net.runelite.client.events.ConfigChanged;
 import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginDescriptor;
 import net.runelite.client.ui.overlay.*;
 import net.runelite.client.util.ImageUtil;
 import java.awt.image.BufferedImage;
-import java.util.HashMap;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 @Slf4j
 @PluginDescriptor(
@@ -37,8 +62,28 @@ public class NpcLevelPlugin extends Plugin
     // Injected services
     @Inject private OverlayManager overlayManager;
     @Inject private NpcLevelOverlay overlay;
+    @Inject private NpcLevelDebugOverlay debugOverlay;
+    @Inject private NpcStatTooltipOverlay tooltipOverlay;
+    @Inject private AggressionAreaOverlay aggressionAreaOverlay;
+    @Inject private OverlayStats stats;
     @Inject private Client client;
     @Inject private NpcLevelConfig config;
+    @Inject private ScheduledExecutorService executor;
+    @Inject private ClientThread clientThread;
+    @Inject private NpcRegistry registry;
+    @Inject private AggressionTracker aggressionTracker;
+    @Inject private NpcStatsStore statsStore;
+    @Inject private MaxHitLearner maxHitLearner;
+
+    /** Seconds between writes of newly observed max hits */
+    private static final long MAX_HIT_FLUSH_SECONDS = 30;
+
+    /** Chat command, typed as ::forgetmaxhits, that deletes every learned max hit */
+    static final String FORGET_MAX_HITS_COMMAND = "forgetmaxhits";
+
+    private Future<?> loadTask;
+    private Future<?> flushTask;
+    private DatasetWatcher datasetWatcher;
 
     /*---------------- CONFIG ----------------*/
     @Provides
@@ -50,15 +95,347 @@ public class NpcLevelPlugin extends Plugin
     /*---------------- LIFECYCLE ----------------*/
     @Override protected void startUp()
     {
+        long start = System.nanoTime();
         overlayManager.add(overlay);
-        log.info("NPC Level Overlay started.");
+        overlayManager.add(debugOverlay);
+        overlayManager.add(tooltipOverlay);
+        overlayManager.add(aggressionAreaOverlay);
+        updatePerformanceRecording();
+
+        // Data and icons are loaded off the client thread; the overlay draws
+        // plain labels until each of them is published.
+        datasetWatcher = new DatasetWatcher(NPCDataLoader.getOverridePath(), this::onDatasetReloaded);
+        loadTask = executor.submit(this::loadResources);
+        flushTask = executor.scheduleWithFixedDelay(maxHitLearner::flush,
+            MAX_HIT_FLUSH_SECONDS, MAX_HIT_FLUSH_SECONDS, TimeUnit.SECONDS);
+
+        // Config may have changed while the plugin was stopped
+        clientThread.invokeLater(this::applySettings);
+        // NPCs already in the scene were spawned before we subscribed
+        clientThread.invokeLater(this::trackSceneNpcs);
+
+        log.info("NPC Level Overlay started in {} ms.", (System.nanoTime() - start) / 1_000_000.0);
     }
 
     @Override protected void shutDown()
     {
+        if (loadTask != null)
+        {
+            loadTask.cancel(false);
+            loadTask = null;
+        }
+        flushTask.cancel(false);
+        // Write whatever was learned since the last scheduled flush
+        executor.submit(maxHitLearner::flush);
+        datasetWatcher.stop();
         overlayManager.remove(overlay);
+        overlayManager.remove(debugOverlay);
+        overlayManager.remove(tooltipOverlay);
+        overlayManager.remove(aggressionAreaOverlay);
+        stats.setEnabled(false);
+        unregisterStatsMBean();
+        executor.submit(() -> statsStore.retain(EnumSet.noneOf(NpcStat.class)));
+        clientThread.invokeLater(() ->
+        {
+            registry.clear();
+            aggressionTracker.reset();
+        });
         log.info("NPC Level Overlay stopped.");
     }
+
+    /*---------------- EVENTS ----------------*/
+    @Subscribe
+    public void onNpcSpawned(NpcSpawned event)
+    {
+        registry.add(event.getNpc());
+    }
+
+    @Subscribe
+    public void onNpcDespawned(NpcDespawned event)
+    {
+        registry.remove(event.getNpc());
+    }
+
+    @Subscribe
+    public void onNpcChanged(NpcChanged event)
+    {
+        registry.update(event.getNpc());
+    }
+
+    @Subscribe
+    public void onGameTick(GameTick event)
+    {
+        aggressionTracker.onGameTick();
+    }
+
+    @Subscribe
+    public void onHitsplatApplied(HitsplatApplied event)
+    {
+        Player local = client.getLocalPlayer();
+        if (!config.learnMaxHits() || local == null || event.getActor() != local)
+        {
+            return;
+        }
+        Hitsplat hitsplat = event.getHitsplat();
+        int type = hitsplat.getHitsplatType();
+        if (type != HitsplatID.DAMAGE_ME && type != HitsplatID.DAMAGE_MAX_ME)
+        {
+            return;
+        }
+
+        // Damage is only credited when exactly one NPC is attacking the player
+        NPC attacker = registry.findAttacker(local);
+        if (attacker == null)
+        {
+            return;
+        }
+        if (maxHitLearner.record(attacker.getId(), hitsplat.getAmount()))
+        {
+            // Sprites are keyed by label text, so only this NPC's labels and tooltip need redoing
+            registry.update(attacker.getId());
+            TrackedNpc entry = registry.get(attacker);
+            if (entry != null)
+            {
+                tooltipOverlay.invalidate(entry.compositionId);
+            }
+        }
+    }
+
+    @Subscribe
+    public void onCommandExecuted(CommandExecuted event)
+    {
+        if (FORGET_MAX_HITS_COMMAND.equalsIgnoreCase(event.getCommand()))
+        {
+            executor.submit(this::forgetMaxHits);
+        }
+    }
+
+    @Subscribe
+    public void onStatChanged(StatChanged event)
+    {
+        if (event.getSkill() == Skill.HITPOINTS)
+        {
+            registry.setHitpoints(event.getBoostedLevel());
+        }
+    }
+
+    @Subscribe
+    public void onVarbitChanged(VarbitChanged event)
+    {
+        // Varbit-driven transforms change an NPC's composition without an NpcChanged event
+        registry.checkTransforms();
+    }
+
+    @Subscribe
+    public void onGameStateChanged(GameStateChanged event)
+    {
+        GameState state = event.getGameState();
+        if (state == GameState.LOGIN_SCREEN || state == GameState.HOPPING)
+        {
+            registry.clear();
+            // Tolerance starts over on the next login or world
+            aggressionTracker.reset();
+        }
+        if (state == GameState.LOADING)
+        {
+            // Local coordinates and tile heights refer to the new scene
+            overlay.invalidateProjections();
+            aggressionAreaOverlay.invalidate();
+        }
+    }
+
+    @Subscribe
+    public void onConfigChanged(ConfigChanged event)
+    {
+        if (NpcLevelConfig.GROUP.equals(event.getGroup()))
+        {
+            if ("recordPerformance".equals(event.getKey()))
+            {
+                updatePerformanceRecording();
+            }
+            if ("showHitpoints".equals(event.getKey()) || "showStatTooltip".equals(event.getKey()))
+            {
+                executor.submit(this::updateResidentStats);
+            }
+            if ("learnMaxHits".equals(event.getKey()))
+            {
+                executor.submit(this::updateMaxHitLearning);
+            }
+
+            // ConfigChanged may arrive off the client thread
+            clientThread.invokeLater(this::applySettings);
+        }
+    }
+
+    /*---------------- PERFORMANCE STATS ----------------*/
+    private void updatePerformanceRecording()
+    {
+        boolean enabled = config.recordPerformance();
+        stats.setEnabled(enabled);
+        if (enabled)
+        {
+            registerStatsMBean();
+        }
+        else
+        {
+            unregisterStatsMBean();
+        }
+    }
+
+    private void registerStatsMBean()
+    {
+        try
+        {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OverlayStats.OBJECT_NAME);
+            if (!server.isRegistered(name))
+            {
+                server.registerMBean(stats, name);
+            }
+        }
+        catch (JMException e)
+        {
+            log.warn("Failed to register overlay stats MBean", e);
+        }
+    }
+
+    private void unregisterStatsMBean()
+    {
+        try
+        {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OverlayStats.OBJECT_NAME);
+            if (server.isRegistered(name))
+            {
+                server.unregisterMBean(name);
+            }
+        }
+        catch (JMException e)
+        {
+            log.warn("Failed to unregister overlay stats MBean", e);
+        }
+    }
+
+    private void trackSceneNpcs()
+    {
+        registry.clear();
+        if (client.getGameState() != GameState.LOGGED_IN)
+        {
+            return;
+        }
+        registry.setHitpoints(client.getBoostedSkillLevel(Skill.HITPOINTS));
+        for (NPC npc : client.getNpcs())
+        {
+            registry.add(npc);
+        }
+    }
+
+    private void loadResources()
+    {
+        long start = System.nanoTime();
+        NPCDataLoader.loadData();
+        NPCDataLoader.loadOverrides(NPCDataLoader.getOverridePath());
+        if (!overlay.hasIcons())
+        {
+            overlay.setIcons(OverlayIcons.load());
+        }
+        statsStore.retain(residentStats());
+        if (config.learnMaxHits())
+        {
+            maxHitLearner.load();
+        }
+        // Records resolved before the dataset was published are empty
+        clientThread.invokeLater(() ->
+        {
+            registry.invalidate();
+            tooltipOverlay.invalidate();
+        });
+        log.info("NPC Level Overlay resources loaded in {} ms (background).", (System.nanoTime() - start) / 1_000_000);
+
+        try
+        {
+            datasetWatcher.start();
+        }
+        catch (IOException e)
+        {
+            log.warn("Unable to watch NPC data override file", e);
+        }
+    }
+
+    /**
+     * Stat columns needed by the enabled features; the rest are left on disk
+     */
+    private Set<NpcStat> residentStats()
+    {
+        Set<NpcStat> needed = EnumSet.noneOf(NpcStat.class);
+        if (config.showHitpoints())
+        {
+            needed.add(NpcStat.HITPOINTS);
+        }
+        if (config.showStatTooltip())
+        {
+            needed.addAll(NpcStatTooltipOverlay.STATS);
+        }
+        return needed;
+    }
+
+    private void updateResidentStats()
+    {
+        statsStore.retain(residentStats());
+        // Labels and tooltips formatted before the columns were loaded lack their values
+        clientThread.invokeLater(this::invalidateCaches);
+    }
+
+    private void updateMaxHitLearning()
+    {
+        // Turning learning off only stops recording and applying; the file is kept, since the
+        // toggle may come from a profile switch or config sync. Forgetting is ::forgetmaxhits.
+        if (config.learnMaxHits())
+        {
+            maxHitLearner.load();
+        }
+        clientThread.invokeLater(this::invalidateCaches);
+    }
+
+    private void forgetMaxHits()
+    {
+        maxHitLearner.clear();
+        clientThread.invokeLater(() ->
+        {
+            invalidateCaches();
+            client.addChatMessage(ChatMessageType.GAMEMESSAGE, "", "NPC Level Overlay forgot every learned max hit.", null);
+        });
+    }
+
+    private void onDatasetReloaded()
+    {
+        // Tracked NPCs cache their records and labels, and tooltips their text
+        clientThread.invokeLater(this::invalidateCaches);
+    }
+
+    /**
+     * Snapshot the config for the overlay and registry, then drop everything
+     * derived from the previous snapshot
+     */
+    private void applySettings()
+    {
+        RenderSettings settings = RenderSettings.of(config);
+        registry.setSettings(settings);
+        overlay.setSettings(settings);
+        aggressionAreaOverlay.setSettings(settings);
+        tooltipOverlay.setSettings(settings);
+        invalidateCaches();
+    }
+
+    /**
+     * Drop every cached record, label, sprite and tooltip. Called on the client thread.
+     */
+    private void invalidateCaches()
+    {
+        registry.invalidate();
+        overlay.invalidateLabels();
+        tooltipOverlay.invalidate();
+    }
 }
 
 /*=====================================================================
@@ -68,202 +445,376 @@ public class NpcLevelPlugin extends Plugin
 class NpcLevelOverlay extends Overlay
 {
     private static final int OFFSET_Z = 40;
-    private static final Color GREEN  = new Color(0x00FF00);
-    private static final Color YELLOW = new Color(0xFFFF00);
-    private static final Color ORANGE = new Color(0xFF981F);
-    private static final Color RED    = new Color(0xFF0000);
-    
-    // Icon scaling factor - will be dynamically set from config
 
     private final Client client;
-    private final NpcLevelConfig config;
-    
-    // Weakness icon cache - stores original images (scaling done at render time)
-    private static final Map<String, BufferedImage> weaknessIconsOriginal = new HashMap<>();
+    private final NpcRegistry registry;
+    private final OverlayStats stats;
 
-    // Aggression icon - original
-    private static BufferedImage aggressionIconOriginal;
-
-    static {
-        loadWeaknessIcons();
-        loadAggressionIcon();
-    }
-    
-    private static void loadWeaknessIcons() {
-        // Load all weakness icons
-        loadIcon("fire", "/Fire_rune.png");
-        loadIcon("water", "/Water_rune.png");
-        loadIcon("earth", "/Earth_rune.png");
-        loadIcon("air", "/Air_rune.png");
-        loadIcon("stab", "/White_dagger.png");
-        loadIcon("slash", "/White_scimitar.png");
-        loadIcon("crush", "/White_warhammer.png");
-        loadIcon("magic", "/Magic_icon.png");
-        loadIcon("ranged", "/Steel_arrow_5.png");  // Default ranged icon
-        loadIcon("heavyranged", "/Steel_bolts_5.png");
-        loadIcon("lightranged", "/Steel_dart.png");
-        loadIcon("arrow", "/Steel_arrow_5.png");
-        loadIcon("bolt", "/Steel_bolts_5.png");
-        loadIcon("dart", "/Steel_dart.png");
-    }
-
-    private static void loadIcon(String name, String fileName) {
-        try {
-            BufferedImage originalIcon = ImageUtil.loadImageResource(NpcLevelOverlay.class, fileName);
-            if (originalIcon != null) {
-                weaknessIconsOriginal.put(name, originalIcon);
-            }
-        } catch (Exception e) {
-            log.warn("Failed to load weakness icon: " + fileName, e);
-        }
-    }
+    // Config snapshot, replaced by the plugin on ConfigChanged
+    private RenderSettings settings;
     
-    private static void loadAggressionIcon() {
-        try {
-            BufferedImage originalIcon = ImageUtil.loadImageResource(NpcLevelOverlay.class, "/aggression_icon.png");
-            if (originalIcon != null) {
-                aggressionIconOriginal = originalIcon;
-            }
-        } catch (Exception e) {
-            log.warn("Failed to load aggression icon", e);
+    // Unscaled icons, published by the plugin once background loading finishes
+    private volatile OverlayIcons icons;
+
+    // Scaled icon cache - rebuilt only when the icon size config or the loaded icons change
+    private final Map<Weakness, BufferedImage> weaknessIconsScaled = new EnumMap<>(Weakness.class);
+    private BufferedImage aggressionIconScaled;
+    private NpcLevelConfig.IconSize cachedIconSize;
+    private OverlayIcons cachedIcons;
+
+    // Pre-composited labels, cleared whenever config or icons change
+    private final LabelSpriteCache labelSprites = new LabelSpriteCache();
+
+    // Reused every frame to pick which labels to draw when over the label cap
+    private final LabelSelector selector = new LabelSelector();
+
+    // Reused every frame to stack identical labels and drop overlapping ones
+    private final LabelDeclutter declutter = new LabelDeclutter();
+    private LabelSpriteCache.Sprite[] groupSprites = new LabelSpriteCache.Sprite[64];
+
+    // Batched projection of the selected NPCs into reused arrays
+    private final ProjectionEngine projection = new ProjectionEngine();
+    private int[] projectIndices = new int[64];
+    private int[] projectedX = new int[64];
+    private int[] projectedY = new int[64];
+
+    // Steps detail down when frames run over the configured budget
+    private final FrameBudget budget = new FrameBudget();
+    // Labels drawn by the last refresh, in draw order, moved with their NPCs until the next one
+    private int retainedCount;
+    private TrackedNpc[] retainedEntries = new TrackedNpc[64];
+    private LabelSpriteCache.Sprite[] retainedSprites = new LabelSpriteCache.Sprite[64];
+    private boolean[] retainedLowPriority = new boolean[64];
+
+    /**
+     * Rebuilds the scaled icon cache if the configured icon size has changed.
+     * Icons are scaled once per size and stored premultiplied so drawImage can blit them directly.
+     *
+     * @return true if the cached icons were reused
+     */
+    private boolean ensureIconCache(OverlayIcons icons, NpcLevelConfig.IconSize iconSize) {
+        if (icons == cachedIcons && iconSize == cachedIconSize) return true;
+
+        double scale = iconSize.getScale();
+        weaknessIconsScaled.clear();
+        for (Map.Entry<Weakness, BufferedImage> entry : icons.getWeaknessIcons().entrySet()) {
+            weaknessIconsScaled.put(entry.getKey(), scaleIcon(entry.getValue(), scale));
         }
+        aggressionIconScaled = scaleIcon(icons.getAggressionIcon(), scale);
+        // Sprites embed the scaled icons
+        labelSprites.clear();
+        cachedIcons = icons;
+        cachedIconSize = iconSize;
+        return false;
     }
 
-    private BufferedImage scaleIcon(BufferedImage original, double scale) {
+    private static BufferedImage scaleIcon(BufferedImage original, double scale) {
         if (original == null) return null;
-        int scaledWidth = (int)(original.getWidth() * scale);
-        int scaledHeight = (int)(original.getHeight() * scale);
-        return ImageUtil.resizeImage(original, scaledWidth, scaledHeight);
+        int scaledWidth = Math.max(1, (int)(original.getWidth() * scale));
+        int scaledHeight = Math.max(1, (int)(original.getHeight() * scale));
+        return toCompatibleImage(ImageUtil.resizeImage(original, scaledWidth, scaledHeight));
+    }
+
+    private static BufferedImage toCompatibleImage(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_INT_ARGB_PRE) return image;
+        BufferedImage compatible = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = compatible.createGraphics();
+        try {
+            g.setComposite(AlphaComposite.Src);
+            g.drawImage(image, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+        return compatible;
     }
 
     @Inject
-    NpcLevelOverlay(Client client, NpcLevelConfig config)
+    NpcLevelOverlay(Client client, NpcLevelConfig config, NpcRegistry registry, OverlayStats stats)
     {
         this.client = client;
-        this.config = config;
+        this.registry = registry;
+        this.stats = stats;
+        this.settings = RenderSettings.of(config);
+        budget.setBudgetMicros(settings.frameBudgetMicros);
         setPosition(OverlayPosition.DYNAMIC);
         setLayer(OverlayLayer.ABOVE_SCENE);
     }
 
+    /**
+     * Hand over icons loaded off the client thread. Until this is called the
+     * overlay draws labels without icons.
+     */
+    void setIcons(OverlayIcons icons)
+    {
+        this.icons = icons;
+    }
+
+    boolean hasIcons()
+    {
+        return icons != null;
+    }
+
+    /**
+     * Switch to a new config snapshot. Label sprites are rebuilt lazily.
+     */
+    void setSettings(RenderSettings settings)
+    {
+        this.settings = settings;
+        labelSprites.clear();
+        budget.setBudgetMicros(settings.frameBudgetMicros);
+        budget.requestRefresh();
+    }
+
+    /**
+     * Drop every cached label sprite. Called when config affecting labels changes.
+     */
+    void invalidateLabels()
+    {
+        labelSprites.clear();
+        budget.requestRefresh();
+    }
+
+    LabelSpriteCache getLabelSprites()
+    {
+        return labelSprites;
+    }
+
+    FrameBudget getFrameBudget()
+    {
+        return budget;
+    }
+
+    ProjectionEngine getProjection()
+    {
+        return projection;
+    }
+
+    /**
+     * Drop cached tile heights and projections. Called when a new scene loads.
+     */
+    void invalidateProjections()
+    {
+        projection.invalidate();
+        budget.requestRefresh();
+    }
+
     @Override
     public Dimension render(Graphics2D graphics)
     {
         Player local = client.getLocalPlayer();
         if (local == null) return null;
         int playerLevel = local.getCombatLevel();
+        RenderSettings settings = this.settings;
 
-        for (NPC npc : client.getNpcs())
+        boolean recording = stats.isEnabled();
+        long budgetStart = budget.beginFrame();
+        long frameStart = recording ? (budgetStart != 0 ? budgetStart : System.nanoTime()) : 0;
+        int drawn = 0;
+        int lookupMisses = 0;
+
+        OverlayIcons icons = this.icons;
+        if (icons != null)
         {
-            NPCComposition comp = npc.getTransformedComposition();
-            if (comp == null) continue;
-            int npcLevel = comp.getCombatLevel();
-            if (npcLevel <= 0) continue;
-            if (npcLevel < config.minLevel()) continue;
+            boolean iconCacheHit = ensureIconCache(icons, settings.iconSize);
+            if (recording) stats.recordIconCache(iconCacheHit);
+        }
 
-            // Check if we should only show NPCs in combat
-            if (config.onlyShowInCombat())
+        int plane = client.getTopLevelWorldView().getPlane();
+        FrameBudget.Detail detail = budget.getDetail();
+        if (!budget.isLabelRefresh())
+        {
+            // Between refreshes only move the labels chosen last time
+            drawn = drawRetained(graphics, plane);
+            budget.endFrame(budgetStart, false);
+            if (recording)
             {
-                Actor npcTarget = npc.getInteracting();
-                Actor playerTarget = local.getInteracting();
-                boolean inCombat = (npcTarget == local) || (playerTarget == npc);
-                if (!inCombat) continue;
+                stats.recordFrame(System.nanoTime() - frameStart, registry.size(), drawn, 0);
+                stats.recordDetail(detail);
             }
+            return null;
+        }
 
-            Color colour = levelColour(npcLevel - playerLevel);
+        List<TrackedNpc> tracked = registry.getEligible();
 
-            String textBody = "";
-            if (config.showName() && config.showLevel())
-            {
-                textBody = comp.getName() + " (" + npcLevel + ")";
-            }
-            else if (config.showName())
-            {
-                textBody = comp.getName();
-            }
-            else if (config.showLevel())
+        // Cull by distance and rank the survivors before anything is projected
+        LocalPoint playerLocation = local.getLocalLocation();
+        int maxDistance = settings.maxDistance;
+        boolean onlyShowInCombat = settings.onlyShowInCombat;
+        Actor playerTarget = local.getInteracting();
+        selector.reset(settings.maxLabelsPerFrame);
+        for (int i = 0; i < tracked.size(); i++)
+        {
+            TrackedNpc entry = tracked.get(i);
+            NPC npc = entry.npc;
+
+            boolean inCombat = npc.getInteracting() == local || playerTarget == npc;
+            if (onlyShowInCombat && !inCombat) continue;
+
+            int distance = localDistance(npc.getLocalLocation(), playerLocation);
+            if (distance > maxDistance) continue;
+
+            int tier = inCombat ? LabelSelector.TIER_INTERACTING
+                : entry.willAttack ? LabelSelector.TIER_AGGRESSIVE
+                : LabelSelector.TIER_NONE;
+            selector.offer(i, tier, distance);
+        }
+
+        int viewportX = client.getViewportXOffset();
+        int viewportY = client.getViewportYOffset();
+        int viewportWidth = client.getViewportWidth();
+        int viewportHeight = client.getViewportHeight();
+        boolean showIcons = icons != null && detail == FrameBudget.Detail.FULL;
+        boolean showWeakness = showIcons && settings.showWeaknessIcon;
+        boolean showAggressionIcon = showIcons && settings.showAggressionIcon;
+        boolean dangerColours = settings.dangerDisplay == NpcLevelConfig.DangerDisplay.COLOUR;
+
+        // Project the selected NPCs in one batch, most relevant first
+        int selected = selector.finish();
+        if (projectIndices.length < selected)
+        {
+            int capacity = Math.max(selected, projectIndices.length * 2);
+            projectIndices = new int[capacity];
+            projectedX = new int[capacity];
+            projectedY = new int[capacity];
+        }
+        for (int i = 0; i < selected; i++)
+        {
+            projectIndices[i] = selector.get(selected - 1 - i);
+        }
+        projection.beginFrame(client);
+        projection.project(client, tracked, projectIndices, selected, plane, OFFSET_Z, projectedX, projectedY);
+
+        // Stack identical labels on the same tile
+        boolean declutterLabels = settings.declutterLabels;
+        declutter.reset(selected, viewportWidth, viewportHeight, declutterLabels);
+        for (int i = 0; i < selected; i++)
+        {
+            int index = projectIndices[i];
+            TrackedNpc entry = tracked.get(index);
+            if (!NpcRecord.isPresent(entry.record)) lookupMisses++;
+            if (projectedX[i] == ProjectionEngine.OFFSCREEN) continue;
+
+            // Skip labels whose anchor lands outside the game viewport
+            int x = projectedX[i] - viewportX;
+            int y = projectedY[i] - viewportY;
+            if (x < 0 || y < 0 || x >= viewportWidth || y >= viewportHeight) continue;
+
+            int tile = LabelDeclutter.tile(entry.projectedLocalX >> Perspective.LOCAL_COORD_BITS, entry.projectedLocalY >> Perspective.LOCAL_COORD_BITS, plane);
+            declutter.add(index, tile, entry.label, entry.record, entry.level, x, y);
+        }
+
+        // Resolve sprites in the same order so the most relevant labels claim screen space first
+        int groups = declutter.getGroupCount();
+        if (groupSprites.length < groups)
+        {
+            groupSprites = new LabelSpriteCache.Sprite[Math.max(groups, groupSprites.length * 2)];
+        }
+        for (int g = 0; g < groups; g++)
+        {
+            // Out of time: leave the least relevant labels out of this frame
+            if ((g & 15) == 15 && budget.isPastDeadline(budgetStart))
             {
-                textBody = Integer.toString(npcLevel);
+                groups = g;
+                break;
             }
+            TrackedNpc entry = tracked.get(declutter.getIndex(g));
+            int npcLevel = entry.level;
+            int record = entry.record;
+
+            // Danger tiers are rated on StatChanged; here they are only read
+            Color colour = dangerColours && entry.danger != DangerTier.UNKNOWN
+                ? entry.danger.getColour()
+                : settings.levelColour(npcLevel - playerLevel);
+            boolean showAggression = showAggressionIcon && entry.willAttack;
+
+            Weakness weakness = NpcRecord.weakness(record);
+            BufferedImage weaknessIcon = weakness != null && showWeakness ? weaknessIconsScaled.get(weakness) : null;
+            BufferedImage aggressionIcon = showAggression ? aggressionIconScaled : null;
+
+            // Text and icons are pre-composited into one sprite per unique label
+            LabelSpriteCache.Sprite sprite = labelSprites.get(graphics, entry.label, colour, weakness, weaknessIcon, aggressionIcon, declutter.getSize(g));
+            int left = declutter.getX(g) + sprite.offsetX;
+            int top = declutter.getY(g) + sprite.offsetY;
+            boolean placed = !declutterLabels || declutter.place(left, top, sprite.image.getWidth(), sprite.image.getHeight());
+            groupSprites[g] = placed ? sprite : null;
+        }
 
-            if (config.showHits())
+        // Draw least relevant first so the most relevant labels end up on top
+        boolean retain = budget.isEnabled();
+        retainedCount = 0;
+        for (int g = groups - 1; g >= 0; g--)
+        {
+            LabelSpriteCache.Sprite sprite = groupSprites[g];
+            if (sprite == null) continue;
+            groupSprites[g] = null;
+            graphics.drawImage(sprite.image, viewportX + declutter.getX(g) + sprite.offsetX, viewportY + declutter.getY(g) + sprite.offsetY, null);
+            drawn++;
+            if (retain)
             {
-                // Use the new NPCDataLoader to get max hit
-                Integer maxHit = NPCDataLoader.getMaxHit(npc.getId());
-                
-                if (maxHit != null && maxHit > 0)
-                {
-                    textBody += " [" + maxHit + "]";
-                }
+                TrackedNpc entry = tracked.get(declutter.getIndex(g));
+                retainLabel(entry, sprite, !entry.willAttack && entry.npc.getInteracting() != local && playerTarget != entry.npc);
             }
+        }
 
-            LocalPoint lp = npc.getLocalLocation();
-            Point loc = Perspective.getCanvasTextLocation(client, graphics, lp, textBody, npc.getLogicalHeight() + OFFSET_Z);
-            if (loc != null)
+        budget.endFrame(budgetStart, true);
+        if (recording)
+        {
+            stats.recordFrame(System.nanoTime() - frameStart, registry.size(), drawn, lookupMisses);
+            stats.recordLabelCache(labelSprites.getHits(), labelSprites.getMisses());
+            stats.recordDetail(detail);
+        }
+        return null;
+    }
+
+    private void retainLabel(TrackedNpc entry, LabelSpriteCache.Sprite sprite, boolean lowPriority)
+    {
+        if (retainedCount == retainedEntries.length)
+        {
+            int capacity = retainedCount * 2;
+            retainedEntries = Arrays.copyOf(retainedEntries, capacity);
+            retainedSprites = Arrays.copyOf(retainedSprites, capacity);
+            retainedLowPriority = Arrays.copyOf(retainedLowPriority, capacity);
+        }
+        retainedEntries[retainedCount] = entry;
+        retainedSprites[retainedCount] = sprite;
+        retainedLowPriority[retainedCount] = lowPriority;
+        retainedCount++;
+    }
+
+    /**
+     * Draw the labels kept by the last refresh at their NPCs' current
+     * positions. Low-priority NPCs may keep last frame's position, see
+     * {@link FrameBudget#isProjectionTurn(int)}.
+     */
+    private int drawRetained(Graphics2D graphics, int plane)
+    {
+        projection.beginFrame(client);
+        int drawn = 0;
+        for (int i = 0; i < retainedCount; i++)
+        {
+            TrackedNpc entry = retainedEntries[i];
+            // Despawned, or filtered out since the refresh
+            if (!entry.eligible) continue;
+            if (!retainedLowPriority[i] || budget.isProjectionTurn(i))
             {
-                // Get icon scale from config
-                double iconScale = config.iconSize().getScale();
-
-                // Calculate total width needed for icons
-                int totalIconWidth = 0;
-                boolean showWeakness = config.showWeaknessIcon();
-
-                // Check if NPC will actually be aggressive to the player
-                boolean npcIsAggressive = NPCDataLoader.isAggressive(npc.getId());
-                boolean willAttackPlayer = false;
-
-                if (npcIsAggressive) {
-                    // OSRS aggression formula: if playerLevel > (2 * npcLevel + 1), NPC won't auto-attack
-                    // Example: level 28 hobgoblin won't attack level 57+ players
-                    if (playerLevel <= (2 * npcLevel + 1)) {
-                        willAttackPlayer = true;
-                    }
-                    // TODO: Add support for "always aggressive" NPCs that ignore the level formula
-                }
-
-                boolean showAggression = config.showAggressionIcon() && willAttackPlayer;
-
-                String weakness = NPCDataLoader.getWeakness(npc.getId());
-                BufferedImage weaknessIconOriginal = weakness != null && showWeakness ? weaknessIconsOriginal.get(weakness) : null;
-                BufferedImage weaknessIcon = scaleIcon(weaknessIconOriginal, iconScale);
-                BufferedImage aggressionIcon = showAggression ? scaleIcon(aggressionIconOriginal, iconScale) : null;
-
-                if (weaknessIcon != null) {
-                    totalIconWidth += weaknessIcon.getWidth() + 4; // Icon width + padding
-                }
-
-                if (aggressionIcon != null) {
-                    totalIconWidth += aggressionIcon.getWidth() + 4; // Icon width + padding
-                }
-
-                // Draw weakness icon on the far left
-                int currentX = loc.getX() - totalIconWidth;
-                if (weaknessIcon != null) {
-                    int iconY = loc.getY() - weaknessIcon.getHeight() / 2 - 4;
-
-                    graphics.drawImage(weaknessIcon, currentX, iconY, null);
-                    currentX += weaknessIcon.getWidth() + 4; // Move right for next icon
-                }
-
-                // Draw aggression icon next (to the left of the text)
-                if (aggressionIcon != null) {
-                    int iconY = loc.getY() - aggressionIcon.getHeight() / 2 - 4;
-
-                    graphics.drawImage(aggressionIcon, currentX, iconY, null);
-                }
-                
-                // Draw the text
-                OverlayUtil.renderTextLocation(graphics, loc, textBody, colour);
+                projection.project(client, entry, plane, OFFSET_Z);
             }
+            if (entry.canvasX == ProjectionEngine.OFFSCREEN) continue;
+
+            LabelSpriteCache.Sprite sprite = retainedSprites[i];
+            graphics.drawImage(sprite.image, entry.canvasX + sprite.offsetX, entry.canvasY + sprite.offsetY, null);
+            drawn++;
         }
-        return null;
+        return drawn;
     }
 
-    private static Color levelColour(int diff)
+    /**
+     * Chebyshev distance in local units, or 0 if either location is unknown
+     */
+    private static int localDistance(LocalPoint a, LocalPoint b)
     {
-        if (diff < 0)  return GREEN;
-        if (diff == 0) return YELLOW;
-        if (diff <= 3) return ORANGE;
-        return RED;
+        if (a == null || b == null) return 0;
+        return Math.max(Math.abs(a.getX() - b.getX()), Math.abs(a.getY() - b.getY()));
     }
 
     private static boolean isAttackable(NPCComposition comp)
@@ -0,0 +1,115 @@
+package com.dexhonsa;
+
+/**
+ * Encodes an NPC's overlay data into a single int so the render loop needs one
+ * primitive lookup per NPC.
+ *
+ * <pre>
+ * bit  31     present (0 means the NPC is not in the dataset)
+ * bit  23     dataset max hit is stale: a higher hit was observed in game
+ * bit  22     max hit observed in game rather than taken from the dataset
+ * bit  21     always aggressive (ignores the combat level rule and tolerance)
+ * bit  20     aggressive
+ * bits 16-19  weakness ordinal + 1 (0 = none)
+ * bits 0-15   max hit (0 = unknown)
+ * </pre>
+ */
+public final class NpcRecord {
+
+    /** Record returned for NPC IDs that are not in the dataset */
+    public static final int MISSING = 0;
+
+    private static final int PRESENT = 1 << 31;
+    private static final int AGGRESSIVE = 1 << 20;
+    private static final int ALWAYS_AGGRESSIVE = 1 << 21;
+    private static final int OBSERVED = 1 << 22;
+    private static final int STALE = 1 << 23;
+    private static final int WEAKNESS_SHIFT = 16;
+    private static final int WEAKNESS_MASK = 0xF;
+    private static final int MAX_HIT_MASK = 0xFFFF;
+
+    private NpcRecord() {
+    }
+
+    public static int pack(int maxHit, Weakness weakness, boolean aggressive) {
+        return pack(maxHit, weakness, aggressive, false);
+    }
+
+    /**
+     * @param alwaysAggressive the NPC attacks regardless of the player's combat level
+     *                         or aggression tolerance; implies {@code aggressive}
+     */
+    public static int pack(int maxHit, Weakness weakness, boolean aggressive, boolean alwaysAggressive) {
+        int record = PRESENT | (Math.max(0, Math.min(maxHit, MAX_HIT_MASK)));
+        if (weakness != null) {
+            record |= (weakness.ordinal() + 1) << WEAKNESS_SHIFT;
+        }
+        if (aggressive || alwaysAggressive) {
+            record |= AGGRESSIVE;
+        }
+        if (alwaysAggressive) {
+            record |= ALWAYS_AGGRESSIVE;
+        }
+        return record;
+    }
+
+    /**
+     * The record with its max hit replaced by one observed in game. Creates a
+     * record without weakness or aggression if the NPC is not in the dataset.
+     */
+    public static int observed(int record, int maxHit) {
+        if (!isPresent(record)) {
+            record = pack(0, null, false);
+        }
+        return (record & ~MAX_HIT_MASK) | OBSERVED | Math.max(0, Math.min(maxHit, MAX_HIT_MASK));
+    }
+
+    /**
+     * The record with its dataset max hit replaced by a higher one observed
+     * in game, flagging the dataset entry as stale
+     */
+    public static int stale(int record, int maxHit) {
+        return (record & ~MAX_HIT_MASK) | STALE | Math.max(0, Math.min(maxHit, MAX_HIT_MASK));
+    }
+
+    public static boolean isPresent(int record) {
+        return (record & PRESENT) != 0;
+    }
+
+    /**
+     * Max hit, or 0 if unknown
+     */
+    public static int maxHit(int record) {
+        return record & MAX_HIT_MASK;
+    }
+
+    /**
+     * Weakness, or null if none was classified
+     */
+    public static Weakness weakness(int record) {
+        int code = (record >>> WEAKNESS_SHIFT) & WEAKNESS_MASK;
+        return code == 0 ? null : Weakness.fromOrdinal(code - 1);
+    }
+
+    public static boolean isAggressive(int record) {
+        return (record & AGGRESSIVE) != 0;
+    }
+
+    public static boolean isAlwaysAggressive(int record) {
+        return (record & ALWAYS_AGGRESSIVE) != 0;
+    }
+
+    /**
+     * Whether the max hit was observed in game, see {@link #observed(int, int)}
+     */
+    public static boolean isObserved(int record) {
+        return (record & OBSERVED) != 0;
+    }
+
+    /**
+     * Whether the NPC was seen hitting higher than its dataset max hit, see {@link #stale(int, int)}
+     */
+    public static boolean isStale(int record) {
+        return (record & STALE) != 0;
+    }
+}
@@ -0,0 +1,326 @@
+package com.dexhonsa;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import net.runelite.api.Actor;
+import net.runelite.api.NPC;
+import net.runelite.api.NPCComposition;
+
+/**
+ * NPCs currently in the scene, kept up to date from spawn, despawn and change
+ * events. The overlay iterates only {@link #getEligible()} instead of scanning
+ * every NPC each frame.
+ *
+ * Accessed only from the client thread.
+ */
+@Singleton
+class NpcRegistry {
+
+    private final NpcDataService dataService;
+    private final MaxHitLearner maxHitLearner;
+    // Config snapshot, replaced by the plugin on ConfigChanged
+    private RenderSettings settings;
+
+    // Spawn order, so ties between equally relevant labels resolve the same way every run
+    private final Map<NPC, TrackedNpc> tracked = new LinkedHashMap<>();
+    private final List<TrackedNpc> eligible = new ArrayList<>();
+
+    // Set when membership or eligibility may have changed; the eligible list is rebuilt lazily
+    private boolean dirty;
+    // Set when every entry must be re-resolved, e.g. after a config or dataset change
+    private boolean stale;
+    // Set when a varbit changed, so NPCs with transforms may have a new composition
+    private boolean transformsChanged;
+    // Player's current boosted hitpoints, 0 when unknown
+    private int hitpoints;
+    // Player's combat level and aggression tolerance, from AggressionTracker
+    private int playerLevel;
+    private boolean tolerant;
+
+    // Reused by the bulk record lookup when every entry is re-resolved
+    private int[] resolveIds = new int[64];
+    private String[] resolveNames = new String[64];
+    private int[] resolveRecords = new int[64];
+
+    @Inject
+    NpcRegistry(NpcLevelConfig config, NpcDataService dataService, MaxHitLearner maxHitLearner) {
+        this.settings = RenderSettings.of(config);
+        this.dataService = dataService;
+        this.maxHitLearner = maxHitLearner;
+    }
+
+    void add(NPC npc) {
+        TrackedNpc entry = new TrackedNpc(npc);
+        entry.transforms = hasTransforms(npc);
+        resolve(entry);
+        tracked.put(npc, entry);
+        dirty = true;
+    }
+
+    void remove(NPC npc) {
+        TrackedNpc entry = tracked.remove(npc);
+        if (entry != null) {
+            // The overlay may still hold the entry until its next label refresh
+            entry.eligible = false;
+            dirty = true;
+        }
+    }
+
+    /**
+     * The tracked entry for the NPC, brought up to date with pending
+     * invalidations and transforms, or null if the NPC is not tracked
+     */
+    TrackedNpc get(NPC npc) {
+        getEligible();
+        return tracked.get(npc);
+    }
+
+    /**
+     * Re-resolve a single NPC whose composition changed
+     */
+    void update(NPC npc) {
+        TrackedNpc entry = tracked.get(npc);
+        if (entry == null) {
+            add(npc);
+            return;
+        }
+        entry.transforms = hasTransforms(npc);
+        resolve(entry);
+        dirty = true;
+    }
+
+    /**
+     * Re-resolve the tracked NPCs with this ID, e.g. after a max hit was learned for it
+     */
+    void update(int npcId) {
+        for (TrackedNpc entry : tracked.values()) {
+            if (entry.npc.getId() == npcId) {
+                resolve(entry);
+                dirty = true;
+            }
+        }
+    }
+
+    /**
+     * Re-resolve, before the next frame, the NPCs with transforms whose
+     * transformed composition changed. Called on every VarbitChanged, which
+     * fires many times per tick, so the check runs at most once per frame and
+     * leaves NPCs without transforms alone.
+     */
+    void checkTransforms() {
+        transformsChanged = true;
+    }
+
+    /**
+     * Mark every entry for re-resolution before the next frame. Cheap enough
+     * to call from frequent events; the work happens once in {@link #getEligible()}.
+     */
+    void invalidate() {
+        stale = true;
+    }
+
+    /**
+     * Switch to a new config snapshot and re-resolve every entry before the next frame
+     */
+    void setSettings(RenderSettings settings) {
+        this.settings = settings;
+        stale = true;
+    }
+
+    /**
+     * Re-rate every NPC's danger against the player's new hitpoints. Called from
+     * StatChanged, so the overlay never recomputes danger per frame.
+     */
+    void setHitpoints(int hitpoints) {
+        if (hitpoints == this.hitpoints) {
+            return;
+        }
+        this.hitpoints = hitpoints;
+        boolean flagged = settings.dangerDisplay == NpcLevelConfig.DangerDisplay.FLAG;
+        for (TrackedNpc entry : tracked.values()) {
+            DangerTier danger = DangerTier.of(NpcRecord.maxHit(entry.record), hitpoints);
+            if (danger != entry.danger) {
+                entry.danger = danger;
+                // Flags are part of the label text
+                if (flagged && entry.eligible) {
+                    entry.label = formatLabel(entry, danger);
+                }
+            }
+        }
+    }
+
+    int getHitpoints() {
+        return hitpoints;
+    }
+
+    /**
+     * The only tracked NPC interacting with the target, or null if there is
+     * none or more than one, so damage is never attributed to the wrong NPC
+     */
+    NPC findAttacker(Actor target) {
+        NPC attacker = null;
+        for (TrackedNpc entry : tracked.values()) {
+            if (entry.npc.getInteracting() == target) {
+                if (attacker != null) {
+                    return null;
+                }
+                attacker = entry.npc;
+            }
+        }
+        return attacker;
+    }
+
+    /**
+     * Re-evaluate which NPCs will attack the player. Called by
+     * {@link AggressionTracker} only when the level or tolerance changes.
+     */
+    void setAggressionState(int playerLevel, boolean tolerant) {
+        this.playerLevel = playerLevel;
+        this.tolerant = tolerant;
+        for (TrackedNpc entry : tracked.values()) {
+            entry.willAttack = AggressionTracker.willAttack(entry.record, entry.level, playerLevel, tolerant);
+        }
+    }
+
+    void clear() {
+        for (TrackedNpc entry : tracked.values()) {
+            entry.eligible = false;
+        }
+        tracked.clear();
+        eligible.clear();
+        dirty = false;
+        stale = false;
+    }
+
+    int size() {
+        return tracked.size();
+    }
+
+    /**
+     * NPCs that pass the static filters. The returned list is reused between
+     * calls and must not be modified.
+     */
+    List<TrackedNpc> getEligible() {
+        if (stale) {
+            resolveAll();
+            stale = false;
+            transformsChanged = false;
+            dirty = true;
+        } else if (transformsChanged) {
+            resolveTransformed();
+            transformsChanged = false;
+        }
+        if (dirty) {
+            eligible.clear();
+            for (TrackedNpc entry : tracked.values()) {
+                if (entry.eligible) {
+                    eligible.add(entry);
+                }
+            }
+            dirty = false;
+        }
+        return eligible;
+    }
+
+    private static boolean hasTransforms(NPC npc) {
+        NPCComposition base = npc.getComposition();
+        return base != null && base.getConfigs() != null;
+    }
+
+    private void resolveTransformed() {
+        for (TrackedNpc entry : tracked.values()) {
+            if (!entry.transforms) {
+                continue;
+            }
+            NPCComposition comp = entry.npc.getTransformedComposition();
+            if ((comp != null ? comp.getId() : -1) != entry.compositionId) {
+                resolve(entry, comp, dataService.getRecord(entry.npc.getId(), comp != null ? comp.getName() : null));
+                dirty = true;
+            }
+        }
+    }
+
+    private void resolve(TrackedNpc entry) {
+        NPCComposition comp = entry.npc.getTransformedComposition();
+        resolve(entry, comp, dataService.getRecord(entry.npc.getId(), comp != null ? comp.getName() : null));
+    }
+
+    /**
+     * Re-resolve every entry with one bulk record lookup, so all of them see
+     * the same dataset snapshot
+     */
+    private void resolveAll() {
+        int count = tracked.size();
+        if (resolveIds.length < count) {
+            int capacity = Math.max(count, resolveIds.length * 2);
+            resolveIds = new int[capacity];
+            resolveNames = new String[capacity];
+            resolveRecords = new int[capacity];
+        }
+        int i = 0;
+        for (TrackedNpc entry : tracked.values()) {
+            NPCComposition comp = entry.npc.getTransformedComposition();
+            entry.composition = comp;
+            resolveIds[i] = entry.npc.getId();
+            resolveNames[i] = comp != null ? comp.getName() : null;
+            i++;
+        }
+        dataService.getRecords(resolveIds, resolveNames, count, resolveRecords);
+
+        i = 0;
+        for (TrackedNpc entry : tracked.values()) {
+            resolve(entry, entry.composition, resolveRecords[i++]);
+        }
+        Arrays.fill(resolveNames, 0, count, null);
+    }
+
+    private void resolve(TrackedNpc entry, NPCComposition comp, int datasetRecord) {
+        entry.composition = comp;
+        entry.compositionId = comp != null ? comp.getId() : -1;
+        entry.level = comp != null ? comp.getCombatLevel() : 0;
+        entry.record = settings.learnMaxHits ? maxHitLearner.apply(entry.npc.getId(), datasetRecord) : datasetRecord;
+        // The filter memoises per composition ID, so this is a bit test for all but the first of each
+        entry.eligible = comp != null && entry.level > 0 && entry.level >= settings.minLevel
+            && settings.filter.allows(comp.getId(), comp.getName());
+        entry.danger = DangerTier.of(NpcRecord.maxHit(entry.record), hitpoints);
+        entry.willAttack = AggressionTracker.willAttack(entry.record, entry.level, playerLevel, tolerant);
+        entry.label = entry.eligible ? formatLabel(entry, entry.danger) : null;
+    }
+
+    private String formatLabel(TrackedNpc entry, DangerTier danger) {
+        NPCComposition comp = entry.composition;
+        int npcLevel = entry.level;
+        int record = entry.record;
+        String textBody = "";
+        if (settings.showName && settings.showLevel) {
+            textBody = comp.getName() + " (" + npcLevel + ")";
+        } else if (settings.showName) {
+            textBody = comp.getName();
+        } else if (settings.showLevel) {
+            textBody = Integer.toString(npcLevel);
+        }
+
+        String flag = settings.dangerDisplay == NpcLevelConfig.DangerDisplay.FLAG ? danger.getFlag() : "";
+        int maxHit = NpcRecord.maxHit(record);
+        if (settings.showHits && maxHit > 0) {
+            // Max hits learned in game are marked as approximate, and ones above a stale dataset value as a lower bound
+            textBody += (NpcRecord.isObserved(record) ? " [~" : " [") + maxHit + (NpcRecord.isStale(record) ? "+" : "") + flag + "]";
+        } else if (!flag.isEmpty()) {
+            textBody += " " + flag;
+        }
+
+        // Reads as missing until the plugin has loaded the column
+        if (settings.showHitpoints) {
+            int hitpoints = dataService.getStat(entry.npc.getId(), NpcStat.HITPOINTS);
+            if (hitpoints != NpcStatsStore.MISSING) {
+                textBody += " " + hitpoints + "hp";
+            }
+        }
+        return textBody;
+    }
+}
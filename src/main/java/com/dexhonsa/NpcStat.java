@@ -0,0 +1,64 @@
+package com.dexhonsa;
+
+/**
+ * Every per-NPC column of monsters-complete.csv other than the ID, as stored
+ * in the columnar {@link NpcStatsStore}.
+ */
+public enum NpcStat {
+    NAME("name", Kind.TEXT),
+    COMBAT_LEVEL("combat_level", Kind.INT),
+    SIZE("size", Kind.INT),
+    HITPOINTS("hitpoints", Kind.INT),
+    MAX_HIT("max_hit", Kind.INT),
+    ATTACK_TYPE("attack_type/0", Kind.TEXT),
+    AGGRESSIVE("aggressive", Kind.BOOLEAN),
+    POISONOUS("poisonous", Kind.BOOLEAN),
+    VENOMOUS("venomous", Kind.BOOLEAN),
+    IMMUNE_POISON("immune_poison", Kind.BOOLEAN),
+    IMMUNE_VENOM("immune_venom", Kind.BOOLEAN),
+    ATTACK_LEVEL("attack_level", Kind.INT),
+    STRENGTH_LEVEL("strength_level", Kind.INT),
+    DEFENCE_LEVEL("defence_level", Kind.INT),
+    MAGIC_LEVEL("magic_level", Kind.INT),
+    RANGED_LEVEL("ranged_level", Kind.INT),
+    ATTACK_BONUS("attack_bonus", Kind.INT),
+    STRENGTH_BONUS("strength_bonus", Kind.INT),
+    ATTACK_MAGIC("attack_magic", Kind.INT),
+    MAGIC_BONUS("magic_bonus", Kind.INT),
+    ATTACK_RANGED("attack_ranged", Kind.INT),
+    RANGED_BONUS("ranged_bonus", Kind.INT),
+    DEFENCE_STAB("defence_stab", Kind.INT),
+    DEFENCE_SLASH("defence_slash", Kind.INT),
+    DEFENCE_CRUSH("defence_crush", Kind.INT),
+    DEFENCE_MAGIC("defence_magic", Kind.INT),
+    ELEMENTAL_WEAKNESS_TYPE("elemental_weakness_type", Kind.INT),
+    ELEMENTAL_WEAKNESS_PERCENT("elemental_weakness_percent", Kind.INT),
+    DEFENCE_RANGED_LIGHT("defence_ranged_light", Kind.INT),
+    DEFENCE_RANGED_STANDARD("defence_ranged_standard", Kind.INT),
+    DEFENCE_RANGED_HEAVY("defence_ranged_heavy", Kind.INT);
+
+    public enum Kind {
+        INT,
+        BOOLEAN,
+        TEXT
+    }
+
+    private final String column;
+    private final Kind kind;
+
+    NpcStat(String column, Kind kind) {
+        this.column = column;
+        this.kind = kind;
+    }
+
+    /**
+     * Header name of the CSV column
+     */
+    public String getColumn() {
+        return column;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+}
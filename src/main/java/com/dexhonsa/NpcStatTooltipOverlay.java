@@ -0,0 +1,237 @@
+package com.dexhonsa;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import javax.inject.Inject;
+import net.runelite.api.Client;
+import net.runelite.api.MenuEntry;
+import net.runelite.api.NPC;
+import net.runelite.api.NPCComposition;
+import net.runelite.client.ui.overlay.Overlay;
+import net.runelite.client.ui.overlay.OverlayLayer;
+import net.runelite.client.ui.overlay.OverlayPosition;
+import net.runelite.client.ui.overlay.tooltip.Tooltip;
+import net.runelite.client.ui.overlay.tooltip.TooltipManager;
+
+/**
+ * Tooltip with the full stat block of the NPC under the mouse.
+ *
+ * The hovered NPC comes from the top menu entry, which the client has already
+ * hit-tested, so nothing is projected here and the label overlay is untouched.
+ * The NPC's composition and record come from its {@link NpcRegistry} entry,
+ * so the tooltip agrees with the label, transforms included. Tooltips are
+ * built on first hover and memoised per composition ID until the next
+ * {@link #invalidate()}.
+ */
+class NpcStatTooltipOverlay extends Overlay
+{
+    /** Stat columns read by the tooltip, kept resident while it is enabled */
+    static final Set<NpcStat> STATS = Collections.unmodifiableSet(EnumSet.of(
+        NpcStat.HITPOINTS, NpcStat.ATTACK_TYPE,
+        NpcStat.DEFENCE_STAB, NpcStat.DEFENCE_SLASH, NpcStat.DEFENCE_CRUSH, NpcStat.DEFENCE_MAGIC,
+        NpcStat.DEFENCE_RANGED_LIGHT, NpcStat.DEFENCE_RANGED_STANDARD, NpcStat.DEFENCE_RANGED_HEAVY,
+        NpcStat.ELEMENTAL_WEAKNESS_TYPE, NpcStat.ELEMENTAL_WEAKNESS_PERCENT,
+        NpcStat.POISONOUS, NpcStat.VENOMOUS, NpcStat.IMMUNE_POISON, NpcStat.IMMUNE_VENOM));
+
+    private static final String[] ELEMENTS = {null, "Air", "Water", "Earth", "Fire"};
+
+    private final Client client;
+    private final TooltipManager tooltipManager;
+    private final NpcStatsStore statsStore;
+    private final NpcRegistry registry;
+
+    // Config snapshot, replaced by the plugin on ConfigChanged
+    private RenderSettings settings;
+
+    // Keyed by composition ID, since a transformed NPC keeps its NPC ID
+    private final Map<Integer, Tooltip> tooltips = new HashMap<>();
+    // Most recent tooltip, so hovering the same NPC skips the map lookup
+    private int lastId = -1;
+    private Tooltip lastTooltip;
+
+    @Inject
+    NpcStatTooltipOverlay(Client client, NpcLevelConfig config, TooltipManager tooltipManager, NpcStatsStore statsStore,
+        NpcRegistry registry)
+    {
+        this.client = client;
+        this.tooltipManager = tooltipManager;
+        this.statsStore = statsStore;
+        this.registry = registry;
+        this.settings = RenderSettings.of(config);
+        setPosition(OverlayPosition.DYNAMIC);
+        setLayer(OverlayLayer.ABOVE_WIDGETS);
+    }
+
+    void setSettings(RenderSettings settings)
+    {
+        this.settings = settings;
+        invalidate();
+    }
+
+    @Override
+    public Dimension render(Graphics2D graphics)
+    {
+        if (!settings.showStatTooltip || client.isMenuOpen())
+        {
+            return null;
+        }
+
+        MenuEntry[] entries = client.getMenuEntries();
+        if (entries == null || entries.length == 0)
+        {
+            return null;
+        }
+        NPC npc = entries[entries.length - 1].getNpc();
+        if (npc == null)
+        {
+            return null;
+        }
+
+        TrackedNpc entry = registry.get(npc);
+        if (entry == null || entry.composition == null)
+        {
+            return null;
+        }
+
+        int compositionId = entry.compositionId;
+        if (compositionId != lastId || lastTooltip == null)
+        {
+            Tooltip tooltip = tooltips.get(compositionId);
+            if (tooltip == null)
+            {
+                // The entry's record already has learned max hits applied when enabled
+                NPCComposition comp = entry.composition;
+                tooltip = new Tooltip(format(statsStore, compositionId, comp.getName(), entry.level, entry.record));
+                tooltips.put(compositionId, tooltip);
+            }
+            lastId = compositionId;
+            lastTooltip = tooltip;
+        }
+        tooltipManager.add(lastTooltip);
+        return null;
+    }
+
+    /**
+     * Forget memoised tooltips, e.g. after a config, dataset or resident column change
+     */
+    void invalidate()
+    {
+        tooltips.clear();
+        lastId = -1;
+        lastTooltip = null;
+    }
+
+    /**
+     * Forget the memoised tooltip for one composition ID, e.g. after a max hit was learned for it
+     */
+    void invalidate(int compositionId)
+    {
+        tooltips.remove(compositionId);
+        if (lastId == compositionId)
+        {
+            lastId = -1;
+            lastTooltip = null;
+        }
+    }
+
+    /**
+     * Tooltip text for one NPC. Stats that are unknown, or whose column is not
+     * resident, are left out.
+     */
+    static String format(NpcStatsStore store, int npcId, String name, int level, int record)
+    {
+        StringBuilder text = new StringBuilder();
+        text.append(name).append(" (level ").append(level).append(')');
+
+        int hitpoints = store.getInt(npcId, NpcStat.HITPOINTS);
+        if (hitpoints != NpcStatsStore.MISSING)
+        {
+            text.append("</br>Hitpoints: ").append(hitpoints);
+        }
+
+        int maxHit = NpcRecord.maxHit(record);
+        String attackType = store.getString(npcId, NpcStat.ATTACK_TYPE);
+        if (maxHit > 0)
+        {
+            text.append("</br>Max hit: ").append(maxHit);
+            if (attackType != null)
+            {
+                text.append(" (").append(attackType).append(')');
+            }
+            if (NpcRecord.isObserved(record))
+            {
+                text.append(", observed");
+            }
+            else if (NpcRecord.isStale(record))
+            {
+                text.append(", observed above the NPC data");
+            }
+        }
+
+        int stab = store.getInt(npcId, NpcStat.DEFENCE_STAB);
+        int slash = store.getInt(npcId, NpcStat.DEFENCE_SLASH);
+        int crush = store.getInt(npcId, NpcStat.DEFENCE_CRUSH);
+        if (stab != NpcStatsStore.MISSING || slash != NpcStatsStore.MISSING || crush != NpcStatsStore.MISSING)
+        {
+            text.append("</br>Defence: ").append(bonus(stab)).append(" stab, ")
+                .append(bonus(slash)).append(" slash, ")
+                .append(bonus(crush)).append(" crush");
+        }
+
+        int magic = store.getInt(npcId, NpcStat.DEFENCE_MAGIC);
+        int light = store.getInt(npcId, NpcStat.DEFENCE_RANGED_LIGHT);
+        int standard = store.getInt(npcId, NpcStat.DEFENCE_RANGED_STANDARD);
+        int heavy = store.getInt(npcId, NpcStat.DEFENCE_RANGED_HEAVY);
+        if (magic != NpcStatsStore.MISSING || light != NpcStatsStore.MISSING
+            || standard != NpcStatsStore.MISSING || heavy != NpcStatsStore.MISSING)
+        {
+            text.append("</br>Defence: ").append(bonus(magic)).append(" magic, ")
+                .append(bonus(light)).append('/').append(bonus(standard)).append('/').append(bonus(heavy))
+                .append(" ranged (light/standard/heavy)");
+        }
+
+        int element = store.getInt(npcId, NpcStat.ELEMENTAL_WEAKNESS_TYPE);
+        int percent = store.getInt(npcId, NpcStat.ELEMENTAL_WEAKNESS_PERCENT);
+        if (element > 0 && element < ELEMENTS.length && percent > 0)
+        {
+            text.append("</br>Weak to ").append(ELEMENTS[element]).append(" spells: ").append(percent).append('%');
+        }
+
+        boolean immunePoison = store.getBoolean(npcId, NpcStat.IMMUNE_POISON);
+        boolean immuneVenom = store.getBoolean(npcId, NpcStat.IMMUNE_VENOM);
+        if (immunePoison && immuneVenom)
+        {
+            text.append("</br>Immune to poison and venom");
+        }
+        else if (immunePoison || immuneVenom)
+        {
+            text.append("</br>Immune to ").append(immunePoison ? "poison" : "venom");
+        }
+
+        if (store.getBoolean(npcId, NpcStat.VENOMOUS))
+        {
+            text.append("</br>Venomous");
+        }
+        else if (store.getBoolean(npcId, NpcStat.POISONOUS))
+        {
+            text.append("</br>Poisonous");
+        }
+
+        if (NpcRecord.isPresent(record))
+        {
+            text.append("</br>").append(NpcRecord.isAlwaysAggressive(record) ? "Always aggressive"
+                : NpcRecord.isAggressive(record) ? "Aggressive" : "Not aggressive");
+        }
+        return text.toString();
+    }
+
+    private static String bonus(int value)
+    {
+        return value == NpcStatsStore.MISSING ? "?" : (value > 0 ? "+" : "") + value;
+    }
+}
@@ -0,0 +1,445 @@
+package com.dexhonsa;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Every column of monsters-complete.csv, stored one primitive array per
+ * column and loaded lazily from the columnar file compiled at build time by
+ * NpcStatsStoreWriter in the datagen source set.
+ *
+ * Only the columns passed to {@link #retain(Set)} are resident; the rest cost
+ * nothing but their directory entry. A bundled resource cannot be memory
+ * mapped from inside the plugin jar, so each column is read on demand with a
+ * single skip and bulk read instead.
+ *
+ * Lookups never block or load: a column that is not resident reads as
+ * {@link #MISSING}. Columns are published atomically, so lookups are safe from
+ * any thread while another thread loads.
+ */
+@Slf4j
+@Singleton
+public class NpcStatsStore {
+
+    /** Columnar dataset compiled from monsters-complete.csv by the compileNpcData Gradle task */
+    static final String DATA_FILE = "/npc-stats.bin";
+
+    /** "NPCS", shared with the writer so the two cannot disagree */
+    static final int MAGIC = 0x4E504353;
+    static final int VERSION = 1;
+
+    /** Returned for unknown NPCs, blank values and columns that are not resident */
+    public static final int MISSING = Integer.MIN_VALUE;
+
+    /**
+     * Opens a fresh stream over the columnar file
+     */
+    interface Source {
+        InputStream open() throws IOException;
+    }
+
+    private static final NpcStat[] STATS = NpcStat.values();
+
+    private final Source source;
+    private final AtomicReferenceArray<Column> columns = new AtomicReferenceArray<>(STATS.length);
+
+    // Directory, read on first load and guarded by this
+    private char[] rowOf;
+    private int rows;
+    private int[] offsets;
+    private int[] lengths;
+    private boolean unavailable;
+
+    @Inject
+    NpcStatsStore() {
+        this(() -> NpcStatsStore.class.getResourceAsStream(DATA_FILE));
+    }
+
+    NpcStatsStore(Source source) {
+        this.source = source;
+    }
+
+    /**
+     * Integer or boolean (1 or 0) value of a stat
+     *
+     * @return the value, or {@link #MISSING} if the NPC is unknown, the value
+     *         is blank or the column is not resident
+     */
+    public int getInt(int npcId, NpcStat stat) {
+        if (stat.getKind() == NpcStat.Kind.TEXT) {
+            throw new IllegalArgumentException(stat + " is a text column");
+        }
+        Column column = columns.get(stat.ordinal());
+        return column == null ? MISSING : column.get(npcId);
+    }
+
+    /**
+     * Integer or boolean values of a stat for many NPCs, read from one
+     * snapshot of the column. {@code values[i]} is set for {@code npcIds[i]}
+     * and is {@link #MISSING} as in {@link #getInt(int, NpcStat)}.
+     */
+    public void getInts(int[] npcIds, int count, NpcStat stat, int[] values) {
+        if (stat.getKind() == NpcStat.Kind.TEXT) {
+            throw new IllegalArgumentException(stat + " is a text column");
+        }
+        Column column = columns.get(stat.ordinal());
+        if (column == null) {
+            Arrays.fill(values, 0, count, MISSING);
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            values[i] = column.get(npcIds[i]);
+        }
+    }
+
+    /**
+     * Whether a boolean stat is set; false when it is missing
+     */
+    public boolean getBoolean(int npcId, NpcStat stat) {
+        if (stat.getKind() != NpcStat.Kind.BOOLEAN) {
+            throw new IllegalArgumentException(stat + " is not a boolean column");
+        }
+        Column column = columns.get(stat.ordinal());
+        return column != null && column.get(npcId) == 1;
+    }
+
+    /**
+     * Text value of a stat, or null if it is missing
+     */
+    public String getString(int npcId, NpcStat stat) {
+        if (stat.getKind() != NpcStat.Kind.TEXT) {
+            throw new IllegalArgumentException(stat + " is not a text column");
+        }
+        TextColumn column = (TextColumn) columns.get(stat.ordinal());
+        return column == null ? null : column.getString(npcId);
+    }
+
+    public boolean isResident(NpcStat stat) {
+        return columns.get(stat.ordinal()) != null;
+    }
+
+    /**
+     * Load the given columns and release every other one. Blocks on I/O, so
+     * call this off the client thread.
+     */
+    public synchronized void retain(Set<NpcStat> stats) {
+        for (NpcStat stat : STATS) {
+            if (!stats.contains(stat)) {
+                columns.set(stat.ordinal(), null);
+            } else if (columns.get(stat.ordinal()) == null) {
+                load(stat);
+            }
+        }
+    }
+
+    /**
+     * Approximate heap held by resident columns, excluding the shared row map
+     */
+    public long getResidentBytes() {
+        long bytes = 0;
+        for (int i = 0; i < columns.length(); i++) {
+            Column column = columns.get(i);
+            if (column != null) {
+                bytes += column.bytes();
+            }
+        }
+        return bytes;
+    }
+
+    private void load(NpcStat stat) {
+        long start = System.nanoTime();
+        try {
+            if (!readDirectory()) {
+                return;
+            }
+            int offset = offsets[stat.ordinal()];
+            if (offset < 0) {
+                log.warn("NPC stats have no '{}' column", stat.getColumn());
+                return;
+            }
+
+            byte[] section;
+            try (InputStream in = source.open()) {
+                skipFully(in, offset);
+                section = in.readNBytes(lengths[stat.ordinal()]);
+            }
+            if (section.length != lengths[stat.ordinal()]) {
+                throw new EOFException("Truncated NPC stats column " + stat.getColumn());
+            }
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(section));
+            Column column;
+            switch (stat.getKind()) {
+                case BOOLEAN:
+                    long[] words = new long[(rows + 63) >>> 6];
+                    for (int i = 0; i < words.length; i++) {
+                        words[i] = in.readLong();
+                    }
+                    column = new BitColumn(rowOf, words);
+                    break;
+                case TEXT:
+                    String[] dictionary = new String[in.readInt() + 1];
+                    for (int i = 1; i < dictionary.length; i++) {
+                        dictionary[i] = in.readUTF();
+                    }
+                    column = new TextColumn(rowOf, readInts(in), dictionary);
+                    break;
+                default:
+                    column = new IntColumn(rowOf, readInts(in));
+                    break;
+            }
+            columns.set(stat.ordinal(), column);
+            log.debug("Loaded NPC stat column {} ({} bytes) in {} us",
+                stat.getColumn(), column.bytes(), (System.nanoTime() - start) / 1_000);
+        } catch (IOException e) {
+            log.error("Failed to read NPC stats column {}", stat.getColumn(), e);
+        }
+    }
+
+    private boolean readDirectory() throws IOException {
+        if (rowOf != null || unavailable) {
+            return !unavailable;
+        }
+        try (InputStream stream = source.open()) {
+            if (stream == null) {
+                log.warn("Could not find file: {}", DATA_FILE);
+                unavailable = true;
+                return false;
+            }
+            DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not an NPC stats file");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported NPC stats version " + version);
+            }
+
+            char[] map = new char[in.readInt()];
+            for (int i = 0; i < map.length; i++) {
+                map[i] = in.readChar();
+            }
+            int rowCount = in.readInt();
+            int[] columnOffsets = new int[STATS.length];
+            int[] columnLengths = new int[STATS.length];
+            Arrays.fill(columnOffsets, -1);
+            for (int i = in.readInt(); i > 0; i--) {
+                String name = in.readUTF();
+                int offset = in.readInt();
+                int length = in.readInt();
+                for (NpcStat stat : STATS) {
+                    if (stat.getColumn().equals(name)) {
+                        columnOffsets[stat.ordinal()] = offset;
+                        columnLengths[stat.ordinal()] = length;
+                    }
+                }
+            }
+
+            rowOf = map;
+            rows = rowCount;
+            offsets = columnOffsets;
+            lengths = columnLengths;
+            return true;
+        } catch (IOException e) {
+            unavailable = true;
+            throw e;
+        }
+    }
+
+    /**
+     * Width byte chosen by the writer, then the values
+     */
+    private Values readInts(DataInputStream in) throws IOException {
+        int width = in.readByte();
+        switch (width) {
+            case Byte.BYTES:
+                byte[] bytes = new byte[rows];
+                in.readFully(bytes);
+                return new ByteValues(bytes);
+            case Short.BYTES:
+                short[] shorts = new short[rows];
+                for (int i = 0; i < rows; i++) {
+                    shorts[i] = in.readShort();
+                }
+                return new ShortValues(shorts);
+            case Integer.BYTES:
+                int[] ints = new int[rows];
+                for (int i = 0; i < rows; i++) {
+                    ints[i] = in.readInt();
+                }
+                return new IntValues(ints);
+            default:
+                throw new IOException("Unsupported NPC stats column width " + width);
+        }
+    }
+
+    private static void skipFully(InputStream in, long count) throws IOException {
+        while (count > 0) {
+            long skipped = in.skip(count);
+            if (skipped <= 0) {
+                if (in.read() < 0) {
+                    throw new EOFException("Truncated NPC stats file");
+                }
+                skipped = 1;
+            }
+            count -= skipped;
+        }
+    }
+
+    /**
+     * Integer values by row, with the width's minimum marking blanks
+     */
+    private interface Values {
+        int get(int row);
+
+        long bytes();
+    }
+
+    private static final class ByteValues implements Values {
+        private final byte[] values;
+
+        ByteValues(byte[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public int get(int row) {
+            byte value = values[row];
+            return value == Byte.MIN_VALUE ? MISSING : value;
+        }
+
+        @Override
+        public long bytes() {
+            return values.length;
+        }
+    }
+
+    private static final class ShortValues implements Values {
+        private final short[] values;
+
+        ShortValues(short[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public int get(int row) {
+            short value = values[row];
+            return value == Short.MIN_VALUE ? MISSING : value;
+        }
+
+        @Override
+        public long bytes() {
+            return (long) values.length * Short.BYTES;
+        }
+    }
+
+    private static final class IntValues implements Values {
+        private final int[] values;
+
+        IntValues(int[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public int get(int row) {
+            return values[row];
+        }
+
+        @Override
+        public long bytes() {
+            return (long) values.length * Integer.BYTES;
+        }
+    }
+
+    /**
+     * A resident column, sharing the ID to row map with every other column
+     */
+    private abstract static class Column {
+        private final char[] rowOf;
+
+        Column(char[] rowOf) {
+            this.rowOf = rowOf;
+        }
+
+        final int get(int npcId) {
+            int row = npcId >= 0 && npcId < rowOf.length ? rowOf[npcId] - 1 : -1;
+            return row < 0 ? MISSING : value(row);
+        }
+
+        abstract int value(int row);
+
+        abstract long bytes();
+    }
+
+    private static class IntColumn extends Column {
+        final Values values;
+
+        IntColumn(char[] rowOf, Values values) {
+            super(rowOf);
+            this.values = values;
+        }
+
+        @Override
+        int value(int row) {
+            return values.get(row);
+        }
+
+        @Override
+        long bytes() {
+            return values.bytes();
+        }
+    }
+
+    private static final class BitColumn extends Column {
+        private final long[] words;
+
+        BitColumn(char[] rowOf, long[] words) {
+            super(rowOf);
+            this.words = words;
+        }
+
+        @Override
+        int value(int row) {
+            return (int) (words[row >>> 6] >>> row) & 1;
+        }
+
+        @Override
+        long bytes() {
+            return (long) words.length * Long.BYTES;
+        }
+    }
+
+    private static final class TextColumn extends IntColumn {
+        // Index 0 is the blank value
+        private final String[] dictionary;
+
+        TextColumn(char[] rowOf, Values codes, String[] dictionary) {
+            super(rowOf, codes);
+            this.dictionary = dictionary;
+        }
+
+        String getString(int npcId) {
+            int code = get(npcId);
+            return code == MISSING ? null : dictionary[code];
+        }
+
+        @Override
+        long bytes() {
+            long bytes = super.bytes();
+            for (int i = 1; i < dictionary.length; i++) {
+                bytes += dictionary[i].length() * 2L;
+            }
+            return bytes;
+        }
+    }
+}
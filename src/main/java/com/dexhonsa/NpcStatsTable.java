@@ -0,0 +1,348 @@
+package com.dexhonsa;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Dense, ID-indexed table of packed {@link NpcRecord}s.
+ * NPC IDs are small and contiguous enough that a flat int array is both
+ * smaller and faster than a boxed map.
+ *
+ * A secondary index maps normalised NPC names to records for IDs the table
+ * does not know. It is kept as parallel arrays sorted by a 64-bit name hash, so
+ * a name lookup is a hash over the characters and a binary search, with no
+ * allocation.
+ */
+final class NpcStatsTable {
+
+    /** Largest NPC ID accepted, the same bound as {@link NpcFilter#MAX_ID}, so a bad ID cannot allocate a huge table */
+    static final int MAX_ID = 65_535;
+
+    /** "NPCD" */
+    private static final int MAGIC = 0x4E504344;
+    private static final int VERSION = 2;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private int[] records;
+    private int size;
+
+    // Sorted name hashes and the record for each
+    private long[] nameKeys = new long[0];
+    private int[] nameRecords = new int[0];
+
+    NpcStatsTable() {
+        this(1024);
+    }
+
+    NpcStatsTable(int initialCapacity) {
+        records = new int[Math.max(1, initialCapacity)];
+    }
+
+    /**
+     * Packed record for the NPC, or {@link NpcRecord#MISSING}
+     */
+    int get(int npcId) {
+        return npcId >= 0 && npcId < records.length ? records[npcId] : NpcRecord.MISSING;
+    }
+
+    void put(int npcId, int record) {
+        if (npcId < 0 || npcId > MAX_ID) {
+            throw new IllegalArgumentException("NPC id out of range: " + npcId);
+        }
+        if (npcId >= records.length) {
+            records = Arrays.copyOf(records, Math.max(npcId + 1, records.length * 2));
+        }
+        if (!NpcRecord.isPresent(records[npcId])) {
+            size++;
+        }
+        records[npcId] = record;
+    }
+
+    /**
+     * Packed record last put under this name, or {@link NpcRecord#MISSING}
+     *
+     * @see #nameKey(CharSequence)
+     */
+    int getByName(CharSequence name) {
+        if (name == null || nameKeys.length == 0) {
+            return NpcRecord.MISSING;
+        }
+        int index = Arrays.binarySearch(nameKeys, nameKey(name));
+        return index >= 0 ? nameRecords[index] : NpcRecord.MISSING;
+    }
+
+    /**
+     * Map a name to a record, replacing any record already under the same normalised name
+     */
+    void putName(CharSequence name, int record) {
+        putKey(nameKey(name), record);
+    }
+
+    private void putKey(long key, int record) {
+        int index = Arrays.binarySearch(nameKeys, key);
+        if (index >= 0) {
+            nameRecords[index] = record;
+            return;
+        }
+        // Insertion keeps the arrays sorted; only done while building a table
+        int insertAt = -index - 1;
+        int count = nameKeys.length;
+        long[] keys = new long[count + 1];
+        int[] values = new int[count + 1];
+        System.arraycopy(nameKeys, 0, keys, 0, insertAt);
+        System.arraycopy(nameRecords, 0, values, 0, insertAt);
+        keys[insertAt] = key;
+        values[insertAt] = record;
+        System.arraycopy(nameKeys, insertAt, keys, insertAt + 1, count - insertAt);
+        System.arraycopy(nameRecords, insertAt, values, insertAt + 1, count - insertAt);
+        nameKeys = keys;
+        nameRecords = values;
+    }
+
+    /**
+     * Number of distinct names in the name index
+     */
+    int nameCount() {
+        return nameKeys.length;
+    }
+
+    /**
+     * 64-bit FNV-1a hash of a normalised NPC name. Normalising lowercases the
+     * name, drops markup tags and any wiki variant suffix after '#', treats
+     * underscores and non-breaking spaces as spaces, and trims and collapses
+     * whitespace, so "Green_dragon#Level_79" and "Green  Dragon" share a key.
+     */
+    static long nameKey(CharSequence name) {
+        long hash = FNV_OFFSET;
+        boolean started = false;
+        boolean pendingSpace = false;
+        boolean inTag = false;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (inTag) {
+                inTag = c != '>';
+                continue;
+            }
+            if (c == '<') {
+                inTag = true;
+                continue;
+            }
+            if (c == '#') {
+                break;
+            }
+            if (c == '_' || c == '\u00A0' || Character.isWhitespace(c)) {
+                pendingSpace = started;
+                continue;
+            }
+            if (pendingSpace) {
+                hash = (hash ^ ' ') * FNV_PRIME;
+                pendingSpace = false;
+            }
+            hash = (hash ^ Character.toLowerCase(c)) * FNV_PRIME;
+            started = true;
+        }
+        return hash;
+    }
+
+    /**
+     * Number of NPC IDs with a record
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * One past the highest ID slot that can hold a record
+     */
+    int capacity() {
+        return records.length;
+    }
+
+    /**
+     * Read-only map of NPC ID to max hit for every NPC with a known max hit,
+     * backed by this table. Only valid for tables that are no longer modified,
+     * such as a published snapshot.
+     */
+    Map<Integer, Integer> maxHitView() {
+        return new MaxHitView(records);
+    }
+
+    /**
+     * Drop unused trailing slots once loading is complete
+     */
+    void trim() {
+        int last = records.length - 1;
+        while (last >= 0 && !NpcRecord.isPresent(records[last])) {
+            last--;
+        }
+        records = Arrays.copyOf(records, last + 1);
+    }
+
+    /**
+     * A new table holding this table's records with every record present in
+     * {@code overrides} replacing its own. Neither input is modified.
+     */
+    NpcStatsTable merge(NpcStatsTable overrides) {
+        NpcStatsTable merged = new NpcStatsTable(Math.max(records.length, overrides.records.length));
+        System.arraycopy(records, 0, merged.records, 0, records.length);
+        merged.size = size;
+        for (int npcId = 0; npcId < overrides.records.length; npcId++) {
+            int record = overrides.records[npcId];
+            if (NpcRecord.isPresent(record)) {
+                merged.put(npcId, record);
+            }
+        }
+        merged.nameKeys = nameKeys.clone();
+        merged.nameRecords = nameRecords.clone();
+        for (int i = 0; i < overrides.nameKeys.length; i++) {
+            merged.putKey(overrides.nameKeys[i], overrides.nameRecords[i]);
+        }
+        return merged;
+    }
+
+    /**
+     * Write the table in the binary format read by {@link #read(ByteBuffer)}:
+     * magic, version, slot count, one big-endian int record per slot, then the
+     * name count, the sorted name hashes and the record for each name.
+     */
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(records.length);
+        for (int record : records) {
+            out.writeInt(record);
+        }
+        out.writeInt(nameKeys.length);
+        for (long key : nameKeys) {
+            out.writeLong(key);
+        }
+        for (int record : nameRecords) {
+            out.writeInt(record);
+        }
+    }
+
+    /**
+     * Read a table written by {@link #write(DataOutputStream)} with a single bulk copy
+     */
+    static NpcStatsTable read(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < 12 || buffer.getInt() != MAGIC) {
+            throw new IOException("Not an NPC dataset");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported NPC dataset version " + version);
+        }
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining() / Integer.BYTES) {
+            throw new IOException("Truncated NPC dataset");
+        }
+
+        NpcStatsTable table = new NpcStatsTable(length);
+        buffer.asIntBuffer().get(table.records, 0, length);
+        buffer.position(buffer.position() + length * Integer.BYTES);
+        for (int record : table.records) {
+            if (NpcRecord.isPresent(record)) {
+                table.size++;
+            }
+        }
+
+        int names = buffer.remaining() >= Integer.BYTES ? buffer.getInt() : -1;
+        if (names < 0 || names > buffer.remaining() / (Long.BYTES + Integer.BYTES)) {
+            throw new IOException("Truncated NPC dataset");
+        }
+        table.nameKeys = new long[names];
+        table.nameRecords = new int[names];
+        buffer.asLongBuffer().get(table.nameKeys);
+        buffer.position(buffer.position() + names * Long.BYTES);
+        buffer.asIntBuffer().get(table.nameRecords);
+        return table;
+    }
+
+    private static final class MaxHitView extends AbstractMap<Integer, Integer> {
+
+        private final int[] records;
+        private int size = -1;
+
+        MaxHitView(int[] records) {
+            this.records = records;
+        }
+
+        @Override
+        public Integer get(Object key) {
+            if (!(key instanceof Integer)) {
+                return null;
+            }
+            int npcId = (Integer) key;
+            int maxHit = npcId >= 0 && npcId < records.length ? NpcRecord.maxHit(records[npcId]) : 0;
+            return maxHit > 0 ? maxHit : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public int size() {
+            if (size < 0) {
+                int count = 0;
+                for (int record : records) {
+                    if (NpcRecord.maxHit(record) > 0) {
+                        count++;
+                    }
+                }
+                size = count;
+            }
+            return size;
+        }
+
+        @Override
+        public Set<Entry<Integer, Integer>> entrySet() {
+            return new AbstractSet<Entry<Integer, Integer>>() {
+                @Override
+                public Iterator<Entry<Integer, Integer>> iterator() {
+                    return new Iterator<Entry<Integer, Integer>>() {
+                        private int next = advance(0);
+
+                        private int advance(int from) {
+                            while (from < records.length && NpcRecord.maxHit(records[from]) == 0) {
+                                from++;
+                            }
+                            return from;
+                        }
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < records.length;
+                        }
+
+                        @Override
+                        public Entry<Integer, Integer> next() {
+                            if (next >= records.length) {
+                                throw new NoSuchElementException();
+                            }
+                            int npcId = next;
+                            next = advance(npcId + 1);
+                            return new SimpleImmutableEntry<>(npcId, NpcRecord.maxHit(records[npcId]));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return MaxHitView.this.size();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.dexhonsa;
+
+import java.awt.image.BufferedImage;
+import java.util.EnumMap;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.util.ImageUtil;
+
+/**
+ * Unscaled weakness and aggression icons. Loaded once off the client thread
+ * and never mutated afterwards, so a single volatile write is enough to
+ * publish an instance to the overlay.
+ */
+@Slf4j
+final class OverlayIcons {
+
+    private final Map<Weakness, BufferedImage> weaknessIcons;
+    private final BufferedImage aggressionIcon;
+
+    private OverlayIcons(Map<Weakness, BufferedImage> weaknessIcons, BufferedImage aggressionIcon) {
+        this.weaknessIcons = weaknessIcons;
+        this.aggressionIcon = aggressionIcon;
+    }
+
+    /**
+     * Load every icon from the plugin resources. Blocks on image decoding.
+     */
+    static OverlayIcons load() {
+        Map<Weakness, BufferedImage> weaknessIcons = new EnumMap<>(Weakness.class);
+        for (Weakness weakness : Weakness.values()) {
+            BufferedImage icon = loadIcon(weakness.getIconPath());
+            if (icon != null) {
+                weaknessIcons.put(weakness, icon);
+            }
+        }
+        return new OverlayIcons(weaknessIcons, loadIcon("/aggression_icon.png"));
+    }
+
+    private static BufferedImage loadIcon(String fileName) {
+        try {
+            return ImageUtil.loadImageResource(OverlayIcons.class, fileName);
+        } catch (Exception e) {
+            log.warn("Failed to load icon: " + fileName, e);
+            return null;
+        }
+    }
+
+    Map<Weakness, BufferedImage> getWeaknessIcons() {
+        return weaknessIcons;
+    }
+
+    BufferedImage getAggressionIcon() {
+        return aggressionIcon;
+    }
+}
@@ -0,0 +1,193 @@
+package com.dexhonsa;
+
+import java.util.Arrays;
+import javax.inject.Singleton;
+
+/**
+ * Low-overhead render counters for the NPC overlay.
+ *
+ * Recording happens on the client thread and only increments primitive
+ * fields, so it allocates nothing and does not distort what it measures.
+ * Readers (JMX, the debug panel) may see slightly stale values.
+ *
+ * Render times go into a log-linear histogram: exact below 16 µs, then 16
+ * sub-buckets per power of two, which keeps percentile error under ~6%.
+ */
+@Singleton
+public class OverlayStats implements OverlayStatsMXBean {
+
+    static final String OBJECT_NAME = "com.dexhonsa:type=NpcLevelOverlay";
+
+    private static final int SUB_BUCKETS = 16;
+    private static final int SUB_BITS = 4;
+    private static final int BUCKETS = SUB_BUCKETS + (31 - SUB_BITS) * SUB_BUCKETS;
+
+    private final long[] histogram = new long[BUCKETS];
+
+    private volatile boolean enabled;
+
+    private long frames;
+    private long maxMicros;
+    private long npcsConsidered;
+    private long npcsDrawn;
+    private long lookupMisses;
+    private long labelHits;
+    private long labelMisses;
+    // Label cache totals are cumulative, so reset() snapshots them instead of zeroing
+    private long labelHitsAtReset;
+    private long labelMissesAtReset;
+    private long iconHits;
+    private long iconMisses;
+    private volatile FrameBudget.Detail detail = FrameBudget.Detail.FULL;
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Record one rendered frame
+     */
+    void recordFrame(long nanos, int considered, int drawn, int misses) {
+        long micros = nanos / 1_000;
+        histogram[bucket(micros)]++;
+        if (micros > maxMicros) maxMicros = micros;
+        frames++;
+        npcsConsidered += considered;
+        npcsDrawn += drawn;
+        lookupMisses += misses;
+    }
+
+    void recordIconCache(boolean hit) {
+        if (hit) iconHits++;
+        else iconMisses++;
+    }
+
+    /**
+     * Record the label cache's running totals
+     */
+    void recordLabelCache(long hits, long misses) {
+        labelHits = hits;
+        labelMisses = misses;
+    }
+
+    /**
+     * Record the detail level the frame was drawn at
+     */
+    void recordDetail(FrameBudget.Detail detail) {
+        this.detail = detail;
+    }
+
+    static int bucket(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) Math.max(0, micros);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) (micros >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return Math.min(BUCKETS - 1, SUB_BUCKETS + (exponent - SUB_BITS) * SUB_BUCKETS + sub);
+    }
+
+    /**
+     * Largest value that falls into a bucket
+     */
+    static long bucketUpperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = (bucket - SUB_BUCKETS) / SUB_BUCKETS + SUB_BITS;
+        long sub = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BITS);
+        return ((SUB_BUCKETS + sub) << (exponent - SUB_BITS)) + width - 1;
+    }
+
+    /**
+     * Render time at the given percentile (0-100), in microseconds
+     */
+    long percentileMicros(double percentile) {
+        long total = 0;
+        for (long count : histogram) total += count;
+        if (total == 0) return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            seen += histogram[i];
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), maxMicros);
+            }
+        }
+        return maxMicros;
+    }
+
+    @Override
+    public long getFrames() {
+        return frames;
+    }
+
+    @Override
+    public long getRenderP50Micros() {
+        return percentileMicros(50);
+    }
+
+    @Override
+    public long getRenderP99Micros() {
+        return percentileMicros(99);
+    }
+
+    @Override
+    public long getRenderMaxMicros() {
+        return maxMicros;
+    }
+
+    @Override
+    public long getNpcsConsidered() {
+        return npcsConsidered;
+    }
+
+    @Override
+    public long getNpcsDrawn() {
+        return npcsDrawn;
+    }
+
+    @Override
+    public long getLookupMisses() {
+        return lookupMisses;
+    }
+
+    @Override
+    public double getLabelCacheHitRate() {
+        return rate(labelHits - labelHitsAtReset, labelMisses - labelMissesAtReset);
+    }
+
+    @Override
+    public double getIconCacheHitRate() {
+        return rate(iconHits, iconMisses);
+    }
+
+    @Override
+    public String getDetail() {
+        return detail.name();
+    }
+
+    @Override
+    public void reset() {
+        Arrays.fill(histogram, 0);
+        frames = 0;
+        maxMicros = 0;
+        npcsConsidered = 0;
+        npcsDrawn = 0;
+        lookupMisses = 0;
+        iconHits = 0;
+        iconMisses = 0;
+        labelHitsAtReset = labelHits;
+        labelMissesAtReset = labelMisses;
+    }
+
+    private static double rate(long hits, long misses) {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
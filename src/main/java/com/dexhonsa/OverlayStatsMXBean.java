@@ -0,0 +1,33 @@
+package com.dexhonsa;
+
+/**
+ * JMX view of {@link OverlayStats}, registered as
+ * {@value OverlayStats#OBJECT_NAME} while performance recording is enabled.
+ */
+public interface OverlayStatsMXBean {
+
+    long getFrames();
+
+    long getRenderP50Micros();
+
+    long getRenderP99Micros();
+
+    long getRenderMaxMicros();
+
+    long getNpcsConsidered();
+
+    long getNpcsDrawn();
+
+    long getLookupMisses();
+
+    double getLabelCacheHitRate();
+
+    double getIconCacheHitRate();
+
+    /**
+     * Detail level of the last frame: FULL, NO_ICONS, STALE_LABELS or ROUND_ROBIN
+     */
+    String getDetail();
+
+    void reset();
+}
@@ -0,0 +1,215 @@
+package com.dexhonsa;
+
+import java.util.List;
+import net.runelite.api.Client;
+import net.runelite.api.NPC;
+import net.runelite.api.Perspective;
+import net.runelite.api.coords.LocalPoint;
+
+/**
+ * Projects tracked NPCs to canvas coordinates in one batch per frame.
+ *
+ * The camera is read and its trig computed once per frame instead of once per
+ * NPC, and results are written to primitive arrays rather than {@code Point}s.
+ * Each {@link TrackedNpc} remembers its last projection. When neither the
+ * camera nor the NPC's location has changed since then, the previous result is
+ * reused. Tile heights are cached per NPC location. The maths is the same as
+ * {@link Perspective#localToCanvas(Client, LocalPoint, int, int)}, which
+ * projects with the floating point camera in single precision, so results
+ * match it exactly.
+ *
+ * Accessed only from the client thread.
+ */
+class ProjectionEngine {
+
+    /** Written to the output arrays for NPCs that are behind the camera or off the scene */
+    static final int OFFSCREEN = Integer.MIN_VALUE;
+
+    // Same bounds and near plane as Perspective
+    private static final int SCENE_MIN = Perspective.LOCAL_TILE_SIZE;
+    private static final int SCENE_MAX = (Perspective.SCENE_SIZE - 2) * Perspective.LOCAL_TILE_SIZE;
+    private static final int NEAR_PLANE = 50;
+
+    // Camera snapshot for the current frame; pitch and yaw in radians
+    private double cameraX;
+    private double cameraY;
+    private double cameraZ;
+    private double pitch = Double.NaN;
+    private double yaw = Double.NaN;
+    private int scale;
+    private int viewportWidth;
+    private int viewportHeight;
+    private int viewportX;
+    private int viewportY;
+    private float cameraXf;
+    private float cameraYf;
+    private float cameraZf;
+    private float pitchSin;
+    private float pitchCos;
+    private float yawSin;
+    private float yawCos;
+
+    // Bumped whenever the camera moves, or the scene reloads, so cached projections expire
+    private int cameraVersion;
+    private int sceneVersion;
+
+    private long reused;
+    private long projected;
+    // Scratch output for toCanvas
+    private final int[] point = new int[2];
+
+    /**
+     * Snapshot the camera for this frame
+     *
+     * @return true if the camera changed since the previous frame
+     */
+    boolean beginFrame(Client client) {
+        double newCameraX = client.getCameraFpX();
+        double newCameraY = client.getCameraFpY();
+        double newCameraZ = client.getCameraFpZ();
+        double newPitch = client.getCameraFpPitch();
+        double newYaw = client.getCameraFpYaw();
+        int newScale = client.getScale();
+        int newViewportWidth = client.getViewportWidth();
+        int newViewportHeight = client.getViewportHeight();
+        int newViewportX = client.getViewportXOffset();
+        int newViewportY = client.getViewportYOffset();
+
+        if (newCameraX == cameraX && newCameraY == cameraY && newCameraZ == cameraZ
+            && newPitch == pitch && newYaw == yaw && newScale == scale
+            && newViewportWidth == viewportWidth && newViewportHeight == viewportHeight
+            && newViewportX == viewportX && newViewportY == viewportY) {
+            return false;
+        }
+
+        cameraX = newCameraX;
+        cameraY = newCameraY;
+        cameraZ = newCameraZ;
+        pitch = newPitch;
+        yaw = newYaw;
+        scale = newScale;
+        viewportWidth = newViewportWidth;
+        viewportHeight = newViewportHeight;
+        viewportX = newViewportX;
+        viewportY = newViewportY;
+        cameraXf = (float) cameraX;
+        cameraYf = (float) cameraY;
+        cameraZf = (float) cameraZ;
+        pitchSin = (float) Math.sin(pitch);
+        pitchCos = (float) Math.cos(pitch);
+        yawSin = (float) Math.sin(yaw);
+        yawCos = (float) Math.cos(yaw);
+        cameraVersion++;
+        return true;
+    }
+
+    /**
+     * Expire every cached tile height and projection, e.g. when a new scene is loaded
+     */
+    void invalidate() {
+        sceneVersion++;
+        cameraVersion++;
+    }
+
+    /**
+     * Project {@code count} NPCs, picked from {@code tracked} by {@code indices},
+     * at {@code zOffset} above their logical height. Results are written to
+     * {@code outX} and {@code outY}, or {@link #OFFSCREEN} for both.
+     */
+    void project(Client client, List<TrackedNpc> tracked, int[] indices, int count, int plane, int zOffset, int[] outX, int[] outY) {
+        for (int i = 0; i < count; i++) {
+            TrackedNpc entry = tracked.get(indices[i]);
+            project(client, entry, plane, zOffset);
+            outX[i] = entry.canvasX;
+            outY[i] = entry.canvasY;
+        }
+    }
+
+    /**
+     * Project one NPC into its {@link TrackedNpc#canvasX} and
+     * {@link TrackedNpc#canvasY}, which are {@link #OFFSCREEN} if it is not visible
+     */
+    void project(Client client, TrackedNpc entry, int plane, int zOffset) {
+        NPC npc = entry.npc;
+        LocalPoint lp = npc.getLocalLocation();
+        if (lp == null) {
+            entry.canvasX = OFFSCREEN;
+            entry.canvasY = OFFSCREEN;
+            // Project again once the NPC has a location
+            entry.projectedCameraVersion = -1;
+            return;
+        }
+
+        int localX = lp.getX();
+        int localY = lp.getY();
+        int height = npc.getLogicalHeight() + zOffset;
+        boolean moved = localX != entry.projectedLocalX || localY != entry.projectedLocalY
+            || plane != entry.projectedPlane || entry.projectedSceneVersion != sceneVersion;
+
+        if (!moved && height == entry.projectedHeight && entry.projectedCameraVersion == cameraVersion) {
+            reused++;
+            return;
+        }
+        if (moved) {
+            entry.tileHeight = Perspective.getTileHeight(client, lp, plane);
+            entry.projectedLocalX = localX;
+            entry.projectedLocalY = localY;
+            entry.projectedPlane = plane;
+            entry.projectedSceneVersion = sceneVersion;
+        }
+        projectPoint(entry, localX, localY, entry.tileHeight - height);
+        entry.projectedHeight = height;
+        entry.projectedCameraVersion = cameraVersion;
+        projected++;
+    }
+
+    private void projectPoint(TrackedNpc entry, int x, int y, int z) {
+        if (toCanvas(x, y, z, point, 0)) {
+            entry.canvasX = point[0];
+            entry.canvasY = point[1];
+        } else {
+            entry.canvasX = OFFSCREEN;
+            entry.canvasY = OFFSCREEN;
+        }
+    }
+
+    /**
+     * Project a local point at height {@code z} (tile height minus any offset,
+     * as in Perspective) with this frame's camera
+     *
+     * @return false if the point is behind the camera or off the scene, leaving {@code out} untouched
+     */
+    boolean toCanvas(int x, int y, int z, int[] out, int offset) {
+        if (x < SCENE_MIN || y < SCENE_MIN || x > SCENE_MAX || y > SCENE_MAX) {
+            return false;
+        }
+
+        float dx = x - cameraXf;
+        float dy = y - cameraYf;
+        float dz = z - cameraZf;
+        float x1 = dx * yawCos + dy * yawSin;
+        float y1 = dy * yawCos - dx * yawSin;
+        float y2 = dz * pitchCos - y1 * pitchSin;
+        float z1 = y1 * pitchCos + dz * pitchSin;
+        if (z1 < NEAR_PLANE) {
+            return false;
+        }
+        out[offset] = viewportWidth / 2 + (int) (x1 * scale / z1) + viewportX;
+        out[offset + 1] = viewportHeight / 2 + (int) (y2 * scale / z1) + viewportY;
+        return true;
+    }
+
+    /**
+     * Projections served from the per-NPC cache since creation
+     */
+    long getReused() {
+        return reused;
+    }
+
+    /**
+     * Projections computed since creation
+     */
+    long getProjected() {
+        return projected;
+    }
+}
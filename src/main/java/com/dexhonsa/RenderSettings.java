@@ -0,0 +1,92 @@
+package com.dexhonsa;
+
+import java.awt.Color;
+import net.runelite.api.Perspective;
+
+/**
+ * Immutable snapshot of {@link NpcLevelConfig}, taken by the plugin on
+ * startup and on every ConfigChanged. The overlay and registry read plain
+ * fields from it instead of calling through the config proxy each frame.
+ */
+final class RenderSettings {
+
+    // Level differences below the first entry and above the last clamp to them
+    private static final int MIN_DIFF = -1;
+    private static final int MAX_DIFF = 4;
+
+    final int minLevel;
+    final boolean onlyShowInCombat;
+    /** Include and exclude lists, compiled once per snapshot */
+    final NpcFilter filter;
+    final boolean showName;
+    final boolean showLevel;
+    final boolean showHits;
+    final boolean showHitpoints;
+    final boolean learnMaxHits;
+    final boolean showStatTooltip;
+    final NpcLevelConfig.DangerDisplay dangerDisplay;
+    final NpcLevelConfig.IconSize iconSize;
+    final boolean showWeaknessIcon;
+    final boolean showAggressionIcon;
+    final boolean showAggressionArea;
+    /** In tiles */
+    final int aggressionRadius;
+    final Color aggressionAreaColour;
+    /** {@link #aggressionAreaColour} at a third of its alpha */
+    final Color aggressionAreaFill;
+    /** In local units, {@link Integer#MAX_VALUE} for no limit */
+    final int maxDistance;
+    final int maxLabelsPerFrame;
+    final boolean declutterLabels;
+    /** 0 when adaptive detail is off */
+    final int frameBudgetMicros;
+
+    // Label colour by NPC level minus player level, from MIN_DIFF to MAX_DIFF
+    private final Color[] levelColours = new Color[MAX_DIFF - MIN_DIFF + 1];
+
+    private RenderSettings(NpcLevelConfig config) {
+        minLevel = config.minLevel();
+        onlyShowInCombat = config.onlyShowInCombat();
+        filter = NpcFilter.compile(config.includeNpcs(), config.excludeNpcs());
+        showName = config.showName();
+        showLevel = config.showLevel();
+        showHits = config.showHits();
+        showHitpoints = config.showHitpoints();
+        learnMaxHits = config.learnMaxHits();
+        showStatTooltip = config.showStatTooltip();
+        dangerDisplay = config.dangerDisplay();
+        iconSize = config.iconSize();
+        showWeaknessIcon = config.showWeaknessIcon();
+        showAggressionIcon = config.showAggressionIcon();
+        showAggressionArea = config.showAggressionArea();
+        aggressionRadius = config.aggressionRadius();
+        aggressionAreaColour = config.aggressionAreaColor();
+        aggressionAreaFill = new Color(aggressionAreaColour.getRed(), aggressionAreaColour.getGreen(),
+            aggressionAreaColour.getBlue(), aggressionAreaColour.getAlpha() / 3);
+        int maxDrawDistance = config.maxDrawDistance();
+        maxDistance = maxDrawDistance > 0 ? maxDrawDistance * Perspective.LOCAL_TILE_SIZE : Integer.MAX_VALUE;
+        maxLabelsPerFrame = config.maxLabelsPerFrame();
+        declutterLabels = config.declutterLabels();
+        frameBudgetMicros = config.frameBudget();
+
+        Color lower = config.textColorGreen();
+        Color equal = config.textColorYellow();
+        Color higher = config.textColorOrange();
+        Color muchHigher = config.textColorRed();
+        for (int diff = MIN_DIFF; diff <= MAX_DIFF; diff++) {
+            levelColours[diff - MIN_DIFF] = diff < 0 ? lower : diff == 0 ? equal : diff <= 3 ? higher : muchHigher;
+        }
+    }
+
+    static RenderSettings of(NpcLevelConfig config) {
+        return new RenderSettings(config);
+    }
+
+    /**
+     * Label colour for an NPC this many levels above the player: green below,
+     * yellow level, orange up to three above, red beyond
+     */
+    Color levelColour(int diff) {
+        return levelColours[Math.max(MIN_DIFF, Math.min(MAX_DIFF, diff)) - MIN_DIFF];
+    }
+}
@@ -0,0 +1,46 @@
+package com.dexhonsa;
+
+import net.runelite.api.NPC;
+import net.runelite.api.NPCComposition;
+
+/**
+ * Per-NPC state resolved when the NPC spawns or changes, so the overlay
+ * does not have to re-derive it every frame.
+ */
+final class TrackedNpc {
+
+    final NPC npc;
+
+    /** Transformed composition, or null if the NPC currently has none */
+    NPCComposition composition;
+    /** ID of {@link #composition}, or -1 */
+    int compositionId = -1;
+    /** Whether the base composition has varbit-driven transforms */
+    boolean transforms;
+    int level;
+    /** Packed {@link NpcRecord} for the NPC's id */
+    int record;
+    /** Whether the NPC will attack the player, given level, tolerance and the dataset */
+    boolean willAttack;
+    /** Max hit relative to the player's current hitpoints */
+    DangerTier danger = DangerTier.UNKNOWN;
+    /** Label text (name, level and max hit per config), without icons */
+    String label;
+    /** Whether the NPC passes the static filters (level and minimum level) */
+    boolean eligible;
+
+    // Last projection, maintained by ProjectionEngine
+    int canvasX;
+    int canvasY;
+    int tileHeight;
+    int projectedLocalX = Integer.MIN_VALUE;
+    int projectedLocalY = Integer.MIN_VALUE;
+    int projectedPlane = -1;
+    int projectedHeight;
+    int projectedCameraVersion = -1;
+    int projectedSceneVersion = -1;
+
+    TrackedNpc(NPC npc) {
+        this.npc = npc;
+    }
+}
@@ -0,0 +1,46 @@
+package com.dexhonsa;
+
+/**
+ * Combat style an NPC is weakest against, along with the icon used to draw it.
+ */
+public enum Weakness {
+    FIRE("fire", "/Fire_rune.png"),
+    WATER("water", "/Water_rune.png"),
+    EARTH("earth", "/Earth_rune.png"),
+    AIR("air", "/Air_rune.png"),
+    STAB("stab", "/White_dagger.png"),
+    SLASH("slash", "/White_scimitar.png"),
+    CRUSH("crush", "/White_warhammer.png"),
+    MAGIC("magic", "/Magic_icon.png"),
+    RANGED("ranged", "/Steel_arrow_5.png"),
+    LIGHT_RANGED("lightranged", "/Steel_dart.png"),
+    HEAVY_RANGED("heavyranged", "/Steel_bolts_5.png");
+
+    private static final Weakness[] VALUES = values();
+
+    private final String key;
+    private final String iconPath;
+
+    Weakness(String key, String iconPath) {
+        this.key = key;
+        this.iconPath = iconPath;
+    }
+
+    /**
+     * Lower-case identifier, e.g. "fire" or "lightranged"
+     */
+    public String getKey() {
+        return key;
+    }
+
+    public String getIconPath() {
+        return iconPath;
+    }
+
+    /**
+     * Look up a weakness by its ordinal without allocating a values() copy
+     */
+    static Weakness fromOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+}
@@ -0,0 +1,128 @@
+package com.dexhonsa;
+
+import org.junit.Test;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import net.runelite.api.Constants;
+import net.runelite.api.NPC;
+import net.runelite.api.Scene;
+import static org.junit.Assert.*;
+
+public class AggressionAreaOverlayTest {
+
+    private static final int CENTRE = FakeClient.SCENE_SIZE / 2;
+    private static final Map<String, Object> ENABLED = Collections.singletonMap("showAggressionArea", true);
+
+    private static AggressionAreaOverlay overlay(OverlayHarness harness, Map<String, Object> config) {
+        // Low enough that aggressive NPCs attack regardless of their level
+        harness.registry.setAggressionState(3, false);
+        return new AggressionAreaOverlay(harness.fake.getClient(), FakeClient.config(config), harness.registry);
+    }
+
+    private static int paint(AggressionAreaOverlay overlay) {
+        BufferedImage image = OverlayHarness.newFrame();
+        Graphics2D graphics = OverlayHarness.graphics(image);
+        try {
+            overlay.render(graphics);
+        } finally {
+            graphics.dispose();
+        }
+        int painted = 0;
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                if (image.getRGB(x, y) >>> 24 != 0) {
+                    painted++;
+                }
+            }
+        }
+        return painted;
+    }
+
+    @Test
+    public void testShadesAroundAggressiveNpcsOnly() {
+        OverlayHarness harness = new OverlayHarness();
+        harness.npc(26, "Zombie", 13, CENTRE, CENTRE - 6);
+        assertTrue("Zombies are aggressive", paint(overlay(harness, ENABLED)) > 0);
+        assertEquals("Off by default", 0, paint(overlay(harness, Collections.emptyMap())));
+
+        AggressionAreaOverlay overlay = overlay(harness, ENABLED);
+        // Once the player is tolerant the zombie no longer attacks
+        harness.registry.setAggressionState(3, true);
+        assertEquals(0, paint(overlay));
+        assertEquals(0, overlay.getGroupCount());
+    }
+
+    @Test
+    public void testLargerRadiusShadesMore() {
+        OverlayHarness harness = new OverlayHarness();
+        harness.npc(26, "Zombie", 13, CENTRE, CENTRE - 6);
+        int small = paint(overlay(harness, Map.of("showAggressionArea", true, "aggressionRadius", 1)));
+        int large = paint(overlay(harness, Map.of("showAggressionArea", true, "aggressionRadius", 3)));
+        assertTrue(small > 0);
+        assertTrue("Radius 3 should cover more than radius 1", large > small);
+    }
+
+    @Test
+    public void testShapesAreRebuiltOnlyOnChange() {
+        OverlayHarness harness = new OverlayHarness();
+        harness.npc(26, "Zombie", 13, CENTRE - 1, CENTRE - 6);
+        harness.npc(26, "Zombie", 13, CENTRE + 1, CENTRE - 6);
+        AggressionAreaOverlay overlay = overlay(harness, ENABLED);
+
+        paint(overlay);
+        assertEquals("Spawns sharing an ID share one shape", 1, overlay.getGroupCount());
+        assertEquals(1, overlay.getRebuilds());
+        paint(overlay);
+        paint(overlay);
+        assertEquals("A still scene reuses the shapes", 1, overlay.getRebuilds());
+
+        NPC other = harness.npc(1, "Molanisk", 51, CENTRE, CENTRE - 9);
+        paint(overlay);
+        assertEquals(2, overlay.getGroupCount());
+        assertEquals("Only the new group is built", 2, overlay.getRebuilds());
+
+        harness.registry.remove(other);
+        paint(overlay);
+        assertEquals(1, overlay.getGroupCount());
+        assertEquals(2, overlay.getRebuilds());
+
+        harness.fake.camera(CENTRE * 128 + 64, CENTRE * 128 - 1800, -1400, 300, 0);
+        paint(overlay);
+        assertEquals("Moving the camera rebuilds every group", 3, overlay.getRebuilds());
+
+        overlay.invalidate();
+        paint(overlay);
+        assertEquals(4, overlay.getRebuilds());
+    }
+
+    @Test
+    public void testCornersFollowTheTerrainAndBridges() {
+        OverlayHarness harness = new OverlayHarness();
+        harness.npc(26, "Zombie", 13, CENTRE, CENTRE - 6);
+        Scene scene = harness.fake.getClient().getTopLevelWorldView().getScene();
+        int[][][] heights = scene.getTileHeights();
+        int flat = paint(overlay(harness, ENABLED));
+
+        // Raised ground is nearer the camera, so the same tiles cover more of the screen
+        for (int[] column : heights[0]) {
+            Arrays.fill(column, -300);
+        }
+        int raised = paint(overlay(harness, ENABLED));
+        assertTrue("Raised terrain should cover more than flat", raised > flat);
+
+        // Under a bridge the heights of the plane above are used instead
+        for (int[] column : heights[0]) {
+            Arrays.fill(column, 0);
+        }
+        for (int[] column : heights[1]) {
+            Arrays.fill(column, -300);
+        }
+        for (byte[] column : scene.getTileSettings()[1]) {
+            Arrays.fill(column, (byte) Constants.TILE_FLAG_BRIDGE);
+        }
+        assertEquals(raised, paint(overlay(harness, ENABLED)));
+    }
+}
@@ -0,0 +1,77 @@
+package com.dexhonsa;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class AggressionTrackerTest {
+
+    private static final int AGGRESSIVE = NpcRecord.pack(4, Weakness.STAB, true);
+
+    @Test
+    public void testLevelRuleAndTolerance() {
+        assertTrue(AggressionTracker.willAttack(AGGRESSIVE, 28, 57, false));
+        assertFalse("Level 28 won't attack level 58+", AggressionTracker.willAttack(AGGRESSIVE, 28, 58, false));
+        assertFalse("Tolerant players are left alone", AggressionTracker.willAttack(AGGRESSIVE, 28, 3, true));
+        assertFalse(AggressionTracker.willAttack(NpcRecord.pack(4, Weakness.STAB, false), 28, 3, false));
+
+        int always = NpcRecord.pack(20, Weakness.MAGIC, false, true);
+        assertTrue(NpcRecord.isAggressive(always));
+        assertTrue("Always-aggressive NPCs ignore level and tolerance", AggressionTracker.willAttack(always, 10, 126, true));
+    }
+
+    @Test
+    public void testToleranceTimerAndRegionReset() {
+        FakeClient fake = new FakeClient();
+        NpcRegistry registry = new NpcRegistry(FakeClient.config(), new NpcDataService(new NpcStatsStore()), new MaxHitLearner());
+        AggressionTracker tracker = new AggressionTracker(fake.getClient(), registry);
+
+        fake.player(40, 50, 50);
+        fake.set("getTickCount", 100);
+        tracker.onGameTick();
+        assertFalse(tracker.isTolerant());
+        assertEquals(AggressionTracker.TOLERANCE_TICKS, tracker.getTicksRemaining());
+
+        // Wandering within the region keeps the timer running
+        fake.player(40, 50 + AggressionTracker.REGION_RADIUS, 50 - AggressionTracker.REGION_RADIUS);
+        fake.set("getTickCount", 100 + AggressionTracker.TOLERANCE_TICKS - 1);
+        tracker.onGameTick();
+        assertFalse(tracker.isTolerant());
+        assertEquals(1, tracker.getTicksRemaining());
+
+        fake.set("getTickCount", 100 + AggressionTracker.TOLERANCE_TICKS);
+        tracker.onGameTick();
+        assertTrue(tracker.isTolerant());
+
+        // Leaving the region starts a new timer from the new tile
+        fake.player(40, 50 + AggressionTracker.REGION_RADIUS + 1, 50);
+        tracker.onGameTick();
+        assertFalse(tracker.isTolerant());
+        assertEquals(AggressionTracker.TOLERANCE_TICKS, tracker.getTicksRemaining());
+    }
+
+    @Test
+    public void testTrackedNpcsFollowTolerance() {
+        NPCDataLoader.loadData();
+        assertTrue("Molanisk (ID 1) should be aggressive in the dataset", NPCDataLoader.isAggressive(1));
+
+        FakeClient fake = new FakeClient();
+        NpcRegistry registry = new NpcRegistry(FakeClient.config(), new NpcDataService(new NpcStatsStore()), new MaxHitLearner());
+        AggressionTracker tracker = new AggressionTracker(fake.getClient(), registry);
+        registry.add(fake.npc(1, "Molanisk", 51, 52, 52));
+        TrackedNpc molanisk = registry.getEligible().get(0);
+
+        fake.player(40, 50, 50);
+        fake.set("getTickCount", 0);
+        tracker.onGameTick();
+        assertTrue(molanisk.willAttack);
+
+        fake.set("getTickCount", AggressionTracker.TOLERANCE_TICKS);
+        tracker.onGameTick();
+        assertFalse("Tolerance should clear the precomputed flag", molanisk.willAttack);
+
+        // Too high a level for the NPC, even once tolerance resets
+        fake.player(126, 80, 80);
+        tracker.onGameTick();
+        assertFalse(molanisk.willAttack);
+    }
+}
@@ -0,0 +1,76 @@
+package com.dexhonsa;
+
+import org.junit.Test;
+import java.io.IOException;
+import java.io.StringReader;
+import static org.junit.Assert.*;
+
+public class CsvReaderTest {
+
+    @Test
+    public void testPlainFields() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("1,Molanisk, 51 ,\n2,Spectre,96,x"));
+
+        assertTrue(csv.nextRow());
+        assertEquals(4, csv.getFieldCount());
+        assertEquals(1, csv.getInt(0));
+        assertEquals("Molanisk", csv.getString(1));
+        assertEquals("Ints are parsed from trimmed fields", 51, csv.getInt(2));
+        assertTrue("Trailing empty field should be kept", csv.isBlank(3));
+
+        assertTrue(csv.nextRow());
+        assertEquals(2, csv.getInt(0));
+        assertEquals(2, csv.getLine());
+        assertFalse(csv.nextRow());
+    }
+
+    @Test
+    public void testQuotedFields() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("\"a,b\",\"say \"\"hi\"\"\",\"x|y\",\"\"\r\nnext,row\r\n"));
+
+        assertTrue(csv.nextRow());
+        assertEquals(4, csv.getFieldCount());
+        assertEquals("a,b", csv.getString(0));
+        assertEquals("Doubled quotes should be unescaped", "say \"hi\"", csv.getString(1));
+        assertEquals("Pipes are ordinary characters", "x|y", csv.getString(2));
+        assertTrue(csv.isBlank(3));
+
+        assertTrue("CRLF should end the record", csv.nextRow());
+        assertEquals("next", csv.getString(0));
+        assertFalse(csv.nextRow());
+    }
+
+    @Test
+    public void testLineBreakInsideQuotes() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("\"two\nlines\",1\nlast,2\n"));
+
+        assertTrue(csv.nextRow());
+        assertEquals("two\nlines", csv.getString(0));
+        assertTrue(csv.nextRow());
+        assertEquals("Line numbers count physical lines", 3, csv.getLine());
+        assertEquals(2, csv.getInt(1));
+    }
+
+    @Test
+    public void testMatchingWithoutStrings() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("TRUE,Magical melee,-12"));
+
+        assertTrue(csv.nextRow());
+        assertTrue(csv.equalsIgnoreCase(0, "true"));
+        assertTrue(csv.containsIgnoreCase(1, "MAGIC"));
+        assertFalse(csv.containsIgnoreCase(1, "ranged"));
+        assertEquals(-12, csv.getInt(2));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testRejectsNonNumeric() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("12a"));
+        csv.nextRow();
+        csv.getInt(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsUnterminatedQuote() throws IOException {
+        new CsvReader(new StringReader("\"never closed,1\n")).nextRow();
+    }
+}
@@ -0,0 +1,42 @@
+package com.dexhonsa;
+
+import org.junit.Test;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.*;
+
+public class DatasetWatcherTest {
+
+    private static final String CSV = "id,max_hit,attack_type/0,aggressive,defence_stab,defence_slash,defence_crush,defence_magic,"
+        + "elemental_weakness_type,defence_ranged_light,defence_ranged_standard,defence_ranged_heavy\n"
+        + "415,12,stab,true,20,20,20,0,0,20,20,20\n";
+
+    @Test
+    public void testKeepsWatchingAfterTheDirectoryIsDeleted() throws Exception {
+        Path directory = Files.createTempDirectory("npc-overrides");
+        Path file = directory.resolve(NPCDataLoader.OVERRIDE_FILE);
+        CountDownLatch overridden = new CountDownLatch(1);
+        DatasetWatcher watcher = new DatasetWatcher(file, () -> {
+            if (Integer.valueOf(12).equals(NPCDataLoader.getMaxHit(415))) {
+                overridden.countDown();
+            }
+        });
+        try {
+            watcher.start();
+            // Deleting the watched directory cancels its key; the watcher has to register it again
+            Files.delete(directory);
+            Files.createDirectories(directory);
+            Files.write(file, CSV.getBytes(StandardCharsets.UTF_8));
+            assertTrue("Override written after the delete should still be applied", overridden.await(10, TimeUnit.SECONDS));
+        } finally {
+            watcher.stop();
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(directory);
+            NPCDataLoader.loadOverrides(file);
+        }
+        assertEquals(Integer.valueOf(8), NPCDataLoader.getMaxHit(415));
+    }
+}
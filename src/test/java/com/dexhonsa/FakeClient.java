@@ -0,0 +1,289 @@
+package com.dexhonsa;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.runelite.api.Actor;
+import net.runelite.api.Client;
+import net.runelite.api.MenuEntry;
+import net.runelite.api.NPC;
+import net.runelite.api.NPCComposition;
+import net.runelite.api.Player;
+import net.runelite.api.coords.LocalPoint;
+import net.runelite.api.coords.WorldPoint;
+
+/**
+ * Scriptable stand-in for the RuneLite {@link Client}, built from dynamic
+ * proxies so the overlay can be rendered without launching the game.
+ *
+ * Methods that are not scripted return a neutral default: zero, false, an
+ * empty scene-sized array, or another default proxy for interface types, so
+ * chained calls such as {@code client.getTopLevelWorldView().getPlane()} work.
+ * Each proxy returns the same default on every call, so the fake itself does
+ * not allocate inside a measured frame.
+ */
+final class FakeClient {
+
+    /** Scene size in tiles used for default tile arrays */
+    static final int SCENE_SIZE = 104;
+    static final int VIEWPORT_WIDTH = 765;
+    static final int VIEWPORT_HEIGHT = 503;
+
+    private final Map<String, Object> values = new HashMap<>();
+    private final List<NPC> npcs = new ArrayList<>();
+    // Scripted values of each NPC, so tests can change them after spawning
+    private final Map<NPC, Map<String, Object>> npcValues = new HashMap<>();
+    private final Client client;
+    private Player localPlayer;
+
+    FakeClient() {
+        client = proxy(Client.class, values, (method, args) -> {
+            switch (method.getName()) {
+                case "getLocalPlayer":
+                    return localPlayer;
+                case "getNpcs":
+                    return Collections.unmodifiableList(npcs);
+                default:
+                    return null;
+            }
+        });
+
+        // Camera above the scene centre, pitched down towards it
+        camera(SCENE_SIZE / 2 * 128, SCENE_SIZE / 2 * 128 - 1800, -1400, 300, 0);
+        set("getScale", 550);
+        set("getViewportWidth", VIEWPORT_WIDTH);
+        set("getViewportHeight", VIEWPORT_HEIGHT);
+        set("getGameState", net.runelite.api.GameState.LOGGED_IN);
+    }
+
+    Client getClient() {
+        return client;
+    }
+
+    /**
+     * Script the return value of a no-argument client method
+     */
+    FakeClient set(String method, Object value) {
+        values.put(method, value);
+        return this;
+    }
+
+    /**
+     * Position the camera. Pitch and yaw are in RuneScape angle units (2048 per turn).
+     */
+    FakeClient camera(int x, int y, int z, int pitch, int yaw) {
+        return camera((double) x, y, z, pitch * Math.PI / 1024, yaw * Math.PI / 1024);
+    }
+
+    /**
+     * Position the camera between whole units and angles, as the client does
+     * while it moves. Pitch and yaw are in radians; the integer camera is the
+     * floating point one truncated.
+     */
+    FakeClient camera(double x, double y, double z, double pitch, double yaw) {
+        set("getCameraX", (int) x);
+        set("getCameraY", (int) y);
+        set("getCameraZ", (int) z);
+        set("getCameraPitch", (int) (pitch * 1024 / Math.PI) & 2047);
+        set("getCameraYaw", (int) (yaw * 1024 / Math.PI) & 2047);
+        set("getCameraFpX", x);
+        set("getCameraFpY", y);
+        set("getCameraFpZ", z);
+        set("getCameraFpPitch", pitch);
+        set("getCameraFpYaw", yaw);
+        return this;
+    }
+
+    /**
+     * Create the local player at a scene tile
+     */
+    Player player(int combatLevel, int sceneX, int sceneY) {
+        Map<String, Object> player = new HashMap<>();
+        player.put("getCombatLevel", combatLevel);
+        player.put("getName", "Tester");
+        player.put("getLocalLocation", LocalPoint.fromScene(sceneX, sceneY));
+        player.put("getWorldLocation", new WorldPoint(3200 + sceneX, 3200 + sceneY, 0));
+        player.put("getLogicalHeight", 200);
+        localPlayer = proxy(Player.class, player, null);
+        return localPlayer;
+    }
+
+    /**
+     * Add an NPC standing on a scene tile
+     */
+    NPC npc(int id, String name, int combatLevel, int sceneX, int sceneY) {
+        Map<String, Object> comp = new HashMap<>();
+        comp.put("getId", id);
+        comp.put("getName", name);
+        comp.put("getCombatLevel", combatLevel);
+        comp.put("getSize", 1);
+        comp.put("getActions", new String[]{null, "Attack", null, null, null});
+        NPCComposition composition = proxy(NPCComposition.class, comp, null);
+
+        Map<String, Object> npc = new HashMap<>();
+        npc.put("getId", id);
+        npc.put("getIndex", npcs.size());
+        npc.put("getName", name);
+        npc.put("getCombatLevel", combatLevel);
+        npc.put("getComposition", composition);
+        npc.put("getTransformedComposition", composition);
+        npc.put("getLocalLocation", LocalPoint.fromScene(sceneX, sceneY));
+        npc.put("getWorldLocation", new WorldPoint(3200 + sceneX, 3200 + sceneY, 0));
+        npc.put("getLogicalHeight", 200);
+        NPC proxy = proxy(NPC.class, npc, null);
+        npcs.add(proxy);
+        npcValues.put(proxy, npc);
+        return proxy;
+    }
+
+    /**
+     * Give the NPC varbit-driven transforms and switch its transformed
+     * composition, as a varbit change would
+     */
+    FakeClient transform(NPC npc, int id, String name, int combatLevel) {
+        Map<String, Object> base = new HashMap<>();
+        base.put("getConfigs", new int[]{0});
+        Map<String, Object> comp = new HashMap<>();
+        comp.put("getId", id);
+        comp.put("getName", name);
+        comp.put("getCombatLevel", combatLevel);
+        comp.put("getSize", 1);
+        Map<String, Object> values = npcValues.get(npc);
+        values.put("getComposition", proxy(NPCComposition.class, base, null));
+        values.put("getTransformedComposition", proxy(NPCComposition.class, comp, null));
+        values.put("getId", id);
+        return this;
+    }
+
+    /**
+     * Script the return value of a no-argument method of one NPC
+     */
+    FakeClient set(NPC npc, String method, Object value) {
+        npcValues.get(npc).put(method, value);
+        return this;
+    }
+
+    /**
+     * Make the NPC interact with the target, e.g. to attack the local player
+     */
+    FakeClient interact(NPC npc, Actor target) {
+        npcValues.get(npc).put("getInteracting", target);
+        return this;
+    }
+
+    /**
+     * Put the NPC's menu entry on top of the menu, as when the mouse is over it
+     */
+    FakeClient hover(NPC npc) {
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("getOption", "Attack");
+        entry.put("getNpc", npc);
+        return set("getMenuEntries", new MenuEntry[]{proxy(MenuEntry.class, entry, null)});
+    }
+
+    List<NPC> getNpcs() {
+        return npcs;
+    }
+
+    /**
+     * Populate a grid of NPCs around the scene centre, cycling through a few real dataset ids
+     */
+    FakeClient populate(int count) {
+        int[] ids = {415, 265, 240, 239, 443, 2, 26, 1};
+        String[] names = {"Abyssal demon", "Blue dragon", "Black demon", "King Black Dragon", "Infernal Mage", "Aberrant spectre", "Zombie", "Molanisk"};
+        int side = (int) Math.ceil(Math.sqrt(count));
+        int origin = SCENE_SIZE / 2 - side / 2;
+        for (int i = 0; i < count; i++) {
+            int kind = i % ids.length;
+            npc(ids[kind], names[kind], 10 + (i * 7) % 150, origin + i % side, origin + i / side);
+        }
+        return this;
+    }
+
+    /**
+     * A config that returns each item's default, with optional overrides by key name
+     */
+    static NpcLevelConfig config(Map<String, Object> overrides) {
+        return (NpcLevelConfig) Proxy.newProxyInstance(NpcLevelConfig.class.getClassLoader(), new Class<?>[]{NpcLevelConfig.class},
+            (proxy, method, args) -> {
+                if (overrides.containsKey(method.getName())) {
+                    return overrides.get(method.getName());
+                }
+                if (method.isDefault()) {
+                    return MethodHandles.privateLookupIn(NpcLevelConfig.class, MethodHandles.lookup())
+                        .unreflectSpecial(method, NpcLevelConfig.class)
+                        .bindTo(proxy)
+                        .invokeWithArguments(args == null ? new Object[0] : args);
+                }
+                return objectMethod(proxy, method, args);
+            });
+    }
+
+    static NpcLevelConfig config() {
+        return config(Collections.emptyMap());
+    }
+
+    private interface Script {
+        Object answer(Method method, Object[] args);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Map<String, Object> values, Script script) {
+        // Defaults are created once per method so repeated calls allocate nothing
+        Map<Method, Object> defaults = new HashMap<>();
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return objectMethod(proxy, method, args);
+            }
+            if (script != null) {
+                Object answer = script.answer(method, args);
+                if (answer != null) return answer;
+            }
+            if ((args == null || args.length == 0) && values.containsKey(method.getName())) {
+                return values.get(method.getName());
+            }
+            return defaults.computeIfAbsent(method, m -> defaultValue(m.getReturnType()));
+        };
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object objectMethod(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "Fake" + proxy.getClass().getInterfaces()[0].getSimpleName();
+            default:
+                return null;
+        }
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == void.class) return null;
+        if (type == boolean.class) return false;
+        if (type == int.class) return 0;
+        if (type == long.class) return 0L;
+        if (type == double.class) return 0.0;
+        if (type == float.class) return 0f;
+        if (type == short.class) return (short) 0;
+        if (type == byte.class) return (byte) 0;
+        if (type == char.class) return '\0';
+        if (type.isArray()) {
+            // Plane x scene x scene arrays (tile heights, settings) or empty for anything else
+            int dims = type.getName().lastIndexOf('[') + 1;
+            if (dims == 3) return Array.newInstance(type.getComponentType().getComponentType().getComponentType(), 4, SCENE_SIZE + 1, SCENE_SIZE + 1);
+            return Array.newInstance(type.getComponentType(), 0);
+        }
+        if (type.isInterface()) return proxy(type, Collections.emptyMap(), null);
+        return null;
+    }
+}
@@ -0,0 +1,143 @@
+package com.dexhonsa;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class FrameBudgetTest {
+
+    private static final long OVER = 3_000_000;
+    private static final long HEADROOM = 500_000;
+    private static final long WITHIN = 1_800_000;
+
+    private static FrameBudget budget() {
+        FrameBudget budget = new FrameBudget();
+        budget.setBudgetMicros(2_000);
+        return budget;
+    }
+
+    private static void record(FrameBudget budget, long nanos, int frames) {
+        for (int i = 0; i < frames; i++) {
+            budget.record(nanos, true);
+        }
+    }
+
+    @Test
+    public void testStepsDownOneLevelAtATime() {
+        FrameBudget budget = budget();
+        record(budget, OVER, FrameBudget.STEP_DOWN_FRAMES - 1);
+        assertEquals(FrameBudget.Detail.FULL, budget.getDetail());
+        budget.record(OVER, true);
+        assertEquals(FrameBudget.Detail.NO_ICONS, budget.getDetail());
+
+        record(budget, OVER, FrameBudget.STEP_DOWN_FRAMES * 10);
+        assertEquals("Detail bottoms out", FrameBudget.Detail.ROUND_ROBIN, budget.getDetail());
+    }
+
+    @Test
+    public void testSingleSlowFrameDoesNotStepDown() {
+        FrameBudget budget = budget();
+        record(budget, HEADROOM, 100);
+        for (int i = 0; i < 1_000; i++) {
+            budget.record(i % 50 == 0 ? 20_000_000 : HEADROOM, true);
+        }
+        assertEquals(FrameBudget.Detail.FULL, budget.getDetail());
+    }
+
+    @Test
+    public void testStepsUpOnlyWithHeadroom() {
+        FrameBudget budget = budget();
+        record(budget, OVER, FrameBudget.STEP_DOWN_FRAMES * 2);
+        assertEquals(FrameBudget.Detail.STALE_LABELS, budget.getDetail());
+
+        // Just under the budget holds the level
+        record(budget, WITHIN, FrameBudget.STEP_UP_FRAMES * 4);
+        assertEquals(FrameBudget.Detail.STALE_LABELS, budget.getDetail());
+
+        record(budget, HEADROOM, FrameBudget.STEP_UP_FRAMES * 2);
+        assertEquals(FrameBudget.Detail.NO_ICONS, budget.getDetail());
+        record(budget, HEADROOM, FrameBudget.STEP_UP_FRAMES);
+        assertEquals(FrameBudget.Detail.FULL, budget.getDetail());
+    }
+
+    @Test
+    public void testCheapRetainedFramesDoNotStepUp() {
+        FrameBudget budget = budget();
+        record(budget, OVER, FrameBudget.STEP_DOWN_FRAMES * 2);
+        assertEquals(FrameBudget.Detail.STALE_LABELS, budget.getDetail());
+
+        // Only the refresh frames are over budget; averaged with the retained ones the load looks light
+        for (int frame = 0; frame < FrameBudget.STEP_UP_FRAMES * 10; frame++) {
+            boolean refresh = frame % FrameBudget.LABEL_REFRESH_FRAMES == 0;
+            budget.record(refresh ? OVER : HEADROOM / 5, refresh);
+            assertEquals(FrameBudget.Detail.STALE_LABELS, budget.getDetail());
+        }
+
+        // Once refreshes fit again detail comes back
+        for (int frame = 0; frame < FrameBudget.STEP_UP_FRAMES * 2; frame++) {
+            boolean refresh = frame % FrameBudget.LABEL_REFRESH_FRAMES == 0;
+            budget.record(refresh ? HEADROOM : HEADROOM / 5, refresh);
+        }
+        assertEquals(FrameBudget.Detail.NO_ICONS, budget.getDetail());
+    }
+
+    @Test
+    public void testDisabledBudgetStaysAtFullDetail() {
+        FrameBudget budget = new FrameBudget();
+        record(budget, OVER * 10, FrameBudget.STEP_DOWN_FRAMES * 10);
+        assertFalse(budget.isEnabled());
+        assertEquals(FrameBudget.Detail.FULL, budget.getDetail());
+        assertFalse(budget.isPastDeadline(0));
+
+        FrameBudget changed = budget();
+        record(changed, OVER, FrameBudget.STEP_DOWN_FRAMES);
+        changed.setBudgetMicros(4_000);
+        assertEquals("A new budget starts over", FrameBudget.Detail.FULL, changed.getDetail());
+    }
+
+    @Test
+    public void testLabelsRefreshEveryFewFramesWhenStale() {
+        FrameBudget budget = budget();
+        for (int i = 0; i < 8; i++) {
+            budget.beginFrame();
+            assertTrue(budget.isLabelRefresh());
+        }
+
+        record(budget, OVER, FrameBudget.STEP_DOWN_FRAMES * 2);
+        assertEquals(FrameBudget.Detail.STALE_LABELS, budget.getDetail());
+        int refreshes = 0;
+        for (int i = 0; i < FrameBudget.LABEL_REFRESH_FRAMES * 10; i++) {
+            budget.beginFrame();
+            if (budget.isLabelRefresh()) {
+                refreshes++;
+            }
+        }
+        // Plus one for the refresh forced by the level change
+        assertEquals(11, refreshes);
+
+        budget.requestRefresh();
+        budget.beginFrame();
+        assertTrue("A requested refresh happens on the next frame", budget.isLabelRefresh());
+    }
+
+    @Test
+    public void testLowPriorityLabelsTakeTurns() {
+        FrameBudget budget = budget();
+        budget.beginFrame();
+        assertTrue(budget.isProjectionTurn(1));
+
+        record(budget, OVER, FrameBudget.STEP_DOWN_FRAMES * 3);
+        assertEquals(FrameBudget.Detail.ROUND_ROBIN, budget.getDetail());
+        int[] turns = new int[4];
+        for (int frame = 0; frame < FrameBudget.ROUND_ROBIN_SLICES * 10; frame++) {
+            budget.beginFrame();
+            for (int slot = 0; slot < turns.length; slot++) {
+                if (budget.isProjectionTurn(slot)) {
+                    turns[slot]++;
+                }
+            }
+        }
+        for (int count : turns) {
+            assertEquals(10, count);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.dexhonsa;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class LabelDeclutterTest {
+
+    @Test
+    public void testIdenticalLabelsOnSameTileStack() {
+        LabelDeclutter declutter = new LabelDeclutter();
+        declutter.reset(10, 765, 503, true);
+        int tile = LabelDeclutter.tile(50, 50, 0);
+        int record = NpcRecord.pack(1, Weakness.STAB, false);
+
+        for (int i = 0; i < 7; i++) {
+            declutter.add(i, tile, "Cow (2)", record, 2, 100, 100);
+        }
+        // Different tile, level or label each start a new group
+        declutter.add(7, LabelDeclutter.tile(51, 50, 0), "Cow (2)", record, 2, 130, 100);
+        declutter.add(8, tile, "Cow (3)", record, 3, 100, 100);
+        declutter.add(9, tile, "Chicken (1)", record, 1, 100, 100);
+
+        assertEquals(4, declutter.getGroupCount());
+        assertEquals(7, declutter.getSize(0));
+        assertEquals("The first label added represents the group", 0, declutter.getIndex(0));
+        assertEquals(1, declutter.getSize(1));
+    }
+
+    @Test
+    public void testStackingCanBeDisabled() {
+        LabelDeclutter declutter = new LabelDeclutter();
+        declutter.reset(3, 765, 503, false);
+        int tile = LabelDeclutter.tile(50, 50, 0);
+        for (int i = 0; i < 3; i++) {
+            declutter.add(i, tile, "Cow (2)", 0, 2, 100, 100);
+        }
+        assertEquals(3, declutter.getGroupCount());
+    }
+
+    @Test
+    public void testOverlappingRectanglesAreRejected() {
+        LabelDeclutter declutter = new LabelDeclutter();
+        declutter.reset(10, 765, 503, true);
+
+        assertTrue(declutter.place(100, 100, 80, 14));
+        assertFalse("Overlaps the first label", declutter.place(150, 110, 80, 14));
+        assertTrue("Touching edges do not overlap", declutter.place(180, 100, 80, 14));
+        assertTrue("Same column, below", declutter.place(100, 114, 80, 14));
+        // Spans several grid cells and overlaps only through a far cell
+        assertFalse(declutter.place(0, 0, 400, 101));
+        assertTrue("Labels hanging off the viewport are clamped into edge cells", declutter.place(-40, -10, 60, 14));
+        assertFalse(declutter.place(-20, -5, 10, 10));
+    }
+
+    @Test
+    public void testResetClearsPlacedRectangles() {
+        LabelDeclutter declutter = new LabelDeclutter();
+        declutter.reset(1, 765, 503, true);
+        assertTrue(declutter.place(10, 10, 50, 50));
+
+        declutter.reset(1, 1920, 1080, true);
+        assertTrue(declutter.place(10, 10, 50, 50));
+        assertTrue(declutter.place(1900, 1070, 50, 50));
+    }
+}
@@ -0,0 +1,64 @@
+package com.dexhonsa;
+
+import org.junit.Test;
+import java.util.HashSet;
+import java.util.Set;
+import static org.junit.Assert.*;
+
+public class LabelSelectorTest {
+
+    private static Set<Integer> selected(LabelSelector selector) {
+        Set<Integer> indices = new HashSet<>();
+        int count = selector.finish();
+        for (int i = 0; i < count; i++) {
+            indices.add(selector.get(i));
+        }
+        return indices;
+    }
+
+    @Test
+    public void testKeepsNearestWhenOverLimit() {
+        LabelSelector selector = new LabelSelector();
+        selector.reset(3);
+        for (int i = 0; i < 100; i++) {
+            // Index i is (100 - i) away, so the last three offered are nearest
+            selector.offer(i, LabelSelector.TIER_NONE, 100 - i);
+        }
+
+        Set<Integer> indices = selected(selector);
+        assertEquals(3, indices.size());
+        assertTrue(indices.contains(97));
+        assertTrue(indices.contains(98));
+        assertTrue(indices.contains(99));
+    }
+
+    @Test
+    public void testTierBeatsDistance() {
+        LabelSelector selector = new LabelSelector();
+        selector.reset(2);
+        selector.offer(0, LabelSelector.TIER_NONE, 1);
+        selector.offer(1, LabelSelector.TIER_AGGRESSIVE, 5000);
+        selector.offer(2, LabelSelector.TIER_NONE, 2);
+        selector.offer(3, LabelSelector.TIER_INTERACTING, 9000);
+
+        int count = selector.finish();
+        assertEquals(2, count);
+        // Least relevant first, so the interacting NPC is drawn last and ends up on top
+        assertEquals(1, selector.get(0));
+        assertEquals(3, selector.get(1));
+    }
+
+    @Test
+    public void testNoLimitKeepsEverything() {
+        LabelSelector selector = new LabelSelector();
+        selector.reset(0);
+        for (int i = 0; i < 500; i++) {
+            selector.offer(i, LabelSelector.TIER_NONE, i);
+        }
+        assertEquals(500, selected(selector).size());
+
+        // A new frame starts empty
+        selector.reset(0);
+        assertEquals(0, selector.finish());
+    }
+}
@@ -0,0 +1,89 @@
+package com.dexhonsa;
+
+import org.junit.Test;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import static org.junit.Assert.*;
+
+public class LabelSpriteCacheTest {
+
+    private static Graphics2D offscreenGraphics() {
+        Graphics2D graphics = new BufferedImage(200, 100, BufferedImage.TYPE_INT_ARGB).createGraphics();
+        graphics.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 12));
+        return graphics;
+    }
+
+    @Test
+    public void testIdenticalLabelsShareSprite() {
+        LabelSpriteCache cache = new LabelSpriteCache();
+        Graphics2D graphics = offscreenGraphics();
+
+        LabelSpriteCache.Sprite first = cache.get(graphics, "Goblin (2) [1]", Color.GREEN, Weakness.STAB, null, null);
+        LabelSpriteCache.Sprite second = cache.get(graphics, "Goblin (2) [1]", Color.GREEN, Weakness.STAB, null, null);
+
+        assertSame("Identical labels should reuse the sprite", first, second);
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void testColourAndIconsAreKeyed() {
+        LabelSpriteCache cache = new LabelSpriteCache();
+        Graphics2D graphics = offscreenGraphics();
+        BufferedImage icon = new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB_PRE);
+
+        LabelSpriteCache.Sprite plain = cache.get(graphics, "Cow (2)", Color.GREEN, null, null, null);
+        LabelSpriteCache.Sprite red = cache.get(graphics, "Cow (2)", Color.RED, null, null, null);
+        LabelSpriteCache.Sprite withIcon = cache.get(graphics, "Cow (2)", Color.GREEN, Weakness.SLASH, icon, null);
+
+        assertNotSame(plain, red);
+        assertNotSame(plain, withIcon);
+        assertEquals(3, cache.size());
+        assertTrue("Icon should widen the sprite", withIcon.image.getWidth() > plain.image.getWidth());
+        assertTrue("Icons sit left of the text", withIcon.offsetX < plain.offsetX);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() {
+        LabelSpriteCache cache = new LabelSpriteCache(2);
+        Graphics2D graphics = offscreenGraphics();
+
+        LabelSpriteCache.Sprite a = cache.get(graphics, "A", Color.GREEN, null, null, null);
+        cache.get(graphics, "B", Color.GREEN, null, null, null);
+        cache.get(graphics, "A", Color.GREEN, null, null, null);
+        cache.get(graphics, "C", Color.GREEN, null, null, null);
+
+        assertEquals(2, cache.size());
+        assertSame("Recently used label should survive eviction", a, cache.get(graphics, "A", Color.GREEN, null, null, null));
+        cache.get(graphics, "B", Color.GREEN, null, null, null);
+        assertEquals("Evicted label should be rebuilt", 4, cache.getMisses());
+    }
+
+    @Test
+    public void testFontChangeInvalidates() {
+        LabelSpriteCache cache = new LabelSpriteCache();
+        Graphics2D graphics = offscreenGraphics();
+
+        LabelSpriteCache.Sprite before = cache.get(graphics, "Guard (21)", Color.RED, null, null, null);
+        graphics.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 16));
+        LabelSpriteCache.Sprite after = cache.get(graphics, "Guard (21)", Color.RED, null, null, null);
+
+        assertNotSame(before, after);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testStackedCountIsKeyed() {
+        LabelSpriteCache cache = new LabelSpriteCache();
+        Graphics2D graphics = offscreenGraphics();
+
+        LabelSpriteCache.Sprite single = cache.get(graphics, "Cow (2)", Color.GREEN, null, null, null);
+        LabelSpriteCache.Sprite stacked = cache.get(graphics, "Cow (2)", Color.GREEN, null, null, null, 7);
+
+        assertNotSame(single, stacked);
+        assertSame(single, cache.get(graphics, "Cow (2)", Color.GREEN, null, null, null, 1));
+        assertTrue("The count suffix widens the label", stacked.image.getWidth() > single.image.getWidth());
+    }
+}
@@ -0,0 +1,148 @@
+package com.dexhonsa;
+
+import org.junit.Test;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import static org.junit.Assert.*;
+
+public class MaxHitLearnerTest {
+
+    private static Path tempFile() throws IOException {
+        return Files.createTempDirectory("max-hits").resolve(MaxHitLearner.FILE);
+    }
+
+    @Test
+    public void testOnlyNewMaximaAreRecorded() throws IOException {
+        MaxHitLearner learner = new MaxHitLearner(tempFile());
+        assertTrue(learner.record(415, 6));
+        assertFalse("A lower hit is not a new maximum", learner.record(415, 4));
+        assertFalse("An equal hit is not a new maximum", learner.record(415, 6));
+        assertTrue(learner.record(415, 9));
+        assertFalse("Zero damage is ignored", learner.record(2, 0));
+        assertEquals(9, learner.get(415));
+        assertEquals(0, learner.get(2));
+        assertEquals(1, learner.size());
+    }
+
+    @Test
+    public void testApplyFillsMissingMaxHits() throws IOException {
+        MaxHitLearner learner = new MaxHitLearner(tempFile());
+        int unknown = NpcRecord.pack(0, Weakness.STAB, true);
+        assertEquals("Nothing observed yet", unknown, learner.apply(415, unknown));
+
+        learner.record(415, 11);
+        int applied = learner.apply(415, unknown);
+        assertEquals(11, NpcRecord.maxHit(applied));
+        assertTrue(NpcRecord.isObserved(applied));
+        assertEquals(Weakness.STAB, NpcRecord.weakness(applied));
+
+        assertFalse(NpcRecord.isStale(applied));
+        assertEquals(11, NpcRecord.maxHit(learner.apply(415, NpcRecord.MISSING)));
+    }
+
+    @Test
+    public void testHigherHitsFlagStaleDatasetMaxHits() throws IOException {
+        MaxHitLearner learner = new MaxHitLearner(tempFile());
+        int known = NpcRecord.pack(8, Weakness.STAB, true);
+        learner.record(415, 8);
+        assertEquals("A hit within the dataset max hit changes nothing", known, learner.apply(415, known));
+
+        learner.record(415, 11);
+        int stale = learner.apply(415, known);
+        assertTrue(NpcRecord.isStale(stale));
+        assertFalse("Stale is not the same as unknown", NpcRecord.isObserved(stale));
+        assertEquals(11, NpcRecord.maxHit(stale));
+        assertEquals(Weakness.STAB, NpcRecord.weakness(stale));
+        assertTrue(NpcRecord.isAggressive(stale));
+
+        int updated = NpcRecord.pack(12, Weakness.STAB, true);
+        assertEquals("A dataset update above the observed hit clears the flag", updated, learner.apply(415, updated));
+    }
+
+    @Test
+    public void testClearForgetsHitsAndDeletesFile() throws IOException {
+        Path file = tempFile();
+        MaxHitLearner learner = new MaxHitLearner(file);
+        learner.record(415, 9);
+        learner.flush();
+        learner.record(265, 20);
+        assertTrue(Files.isRegularFile(file));
+
+        learner.clear();
+        assertEquals(0, learner.size());
+        assertEquals(0, learner.get(415));
+        assertFalse(Files.exists(file));
+
+        // Nothing pending survives the clear
+        learner.flush();
+        assertFalse(Files.exists(file));
+        assertTrue(learner.record(415, 3));
+    }
+
+    @Test
+    public void testFlushedHitsAreLoadedAndCompacted() throws IOException {
+        Path file = tempFile();
+        MaxHitLearner learner = new MaxHitLearner(file);
+        learner.record(415, 6);
+        learner.record(265, 20);
+        learner.flush();
+        learner.record(415, 9);
+        learner.flush();
+        // Header plus three appended entries
+        assertEquals(8 + 3 * 8, Files.size(file));
+
+        MaxHitLearner reloaded = new MaxHitLearner(file);
+        reloaded.load();
+        assertEquals(9, reloaded.get(415));
+        assertEquals(20, reloaded.get(265));
+        assertEquals("Compacted to one entry per NPC", 8 + 2 * 8, Files.size(file));
+
+        // Nothing pending after a load, so a flush leaves the file alone
+        reloaded.flush();
+        assertEquals(8 + 2 * 8, Files.size(file));
+    }
+
+    @Test
+    public void testPartialTrailingEntryIsIgnored() throws IOException {
+        Path file = tempFile();
+        MaxHitLearner learner = new MaxHitLearner(file);
+        learner.record(415, 9);
+        learner.flush();
+        // An interrupted write leaves half an entry behind
+        Files.write(file, new byte[] {0, 0, 1, 9, 0}, StandardOpenOption.APPEND);
+
+        MaxHitLearner reloaded = new MaxHitLearner(file);
+        reloaded.load();
+        assertEquals(9, reloaded.get(415));
+        assertEquals(1, reloaded.size());
+        assertEquals(8 + 8, Files.size(file));
+    }
+
+    @Test
+    public void testUnreadableFileIsReplaced() throws IOException {
+        Path file = tempFile();
+        Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10});
+
+        MaxHitLearner learner = new MaxHitLearner(file);
+        learner.load();
+        assertEquals(0, learner.size());
+
+        learner.record(415, 9);
+        learner.flush();
+        MaxHitLearner reloaded = new MaxHitLearner(file);
+        reloaded.load();
+        assertEquals(9, reloaded.get(415));
+    }
+
+    @Test
+    public void testFlushWithoutFileCreatesIt() throws IOException {
+        Path file = Files.createTempDirectory("max-hits").resolve("nested").resolve(MaxHitLearner.FILE);
+        MaxHitLearner learner = new MaxHitLearner(file);
+        learner.load();
+        learner.record(415, 9);
+        learner.flush();
+        assertTrue(Files.isRegularFile(file));
+    }
+}
@@ -0,0 +1,42 @@
+package com.dexhonsa;
+
+import org.junit.Test;
+import java.io.IOException;
+import java.io.StringReader;
+import static org.junit.Assert.*;
+
+public class MonsterDataParserTest {
+
+    @Test
+    public void testJoinsOnlyMissingIds() throws IOException {
+        NpcStatsTable table = new NpcStatsTable(16);
+        table.put(2, NpcRecord.pack(8, Weakness.AIR, true));
+
+        String csv = "Aberrant spectre,,,0,20,20,20,15,15,15,\"2,3\",\"14 (without Nose peg),8\",Magic\n"
+            + "Abomination,Fire,50,20,80,80,80,180,180,180,8260,23,\"Slash,Ranged\"\n";
+        int added = MonsterDataParser.join(new StringReader(csv), table);
+
+        assertEquals(2, added);
+        assertEquals("Existing IDs keep their data", 8, NpcRecord.maxHit(table.get(2)));
+        assertTrue(NpcRecord.isAggressive(table.get(2)));
+        assertEquals(14, NpcRecord.maxHit(table.get(3)));
+        assertEquals(Weakness.MAGIC, NpcRecord.weakness(table.get(3)));
+        assertEquals(23, NpcRecord.maxHit(table.get(8260)));
+        assertEquals(Weakness.FIRE, NpcRecord.weakness(table.get(8260)));
+        assertEquals(table.get(8260), table.getByName("Abomination"));
+    }
+
+    @Test
+    public void testParseMaxHit() {
+        assertEquals(96, MonsterDataParser.parseMaxHit("66 (Melee),96 (with explosion)"));
+        assertEquals("Multipliers are not hits", 26, MonsterDataParser.parseMaxHit("17x2 (default),26x2 (empowered)"));
+        assertEquals(38, MonsterDataParser.parseMaxHit("38 (melee) <br/> 21 (magic) <br/> 34 (ranged)"));
+        assertEquals("Numbers inside annotations are ignored", 10, MonsterDataParser.parseMaxHit("10 (2 hits)"));
+        assertEquals(0, MonsterDataParser.parseMaxHit(""));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsMalformedIds() throws IOException {
+        MonsterDataParser.join(new StringReader("Cow,,,0,0,0,0,0,0,0,\"81,x\",1,Crush\n"), new NpcStatsTable(16));
+    }
+}
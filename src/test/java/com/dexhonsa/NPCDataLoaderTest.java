@@ -1,12 +1,23 @@
 package com.dexhonsa;
 
+import org.junit.BeforeClass;
 import org.junit.Test;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Map;
 import static org.junit.Assert.*;
 import java.util.HashMap;
 
 public class NPCDataLoaderTest {
     
+    @BeforeClass
+    public static void loadData() {
+        // The plugin loads data on a background thread at startUp; load it synchronously here
+        NPCDataLoader.loadData();
+        assertTrue("Dataset should be published after loading", NPCDataLoader.isLoaded());
+    }
+    
     @Test
     public void testDataLoading() {
         // Test that data is loaded
@@ -117,8 +128,12 @@ public class NPCDataLoaderTest {
         // Aberrant spectre (ID 2) uses magic attacks
         String aberrantSpectreWeakness = NPCDataLoader.getWeakness(2);
         assertNotNull("Aberrant spectre should have weakness data", aberrantSpectreWeakness);
-        // Now defaults to general magic unless specific elemental weakness in CSV
-        assertEquals("Aberrant spectre (magic attacker) should show magic weakness", "magic", aberrantSpectreWeakness);
+        // Defaults to general magic unless specific elemental weakness in CSV.
+        // The CSV lists elemental_weakness_type 1 (air) for it, which takes precedence.
+        assertEquals("Aberrant spectre (air weakness in CSV) should show air weakness", "air", aberrantSpectreWeakness);
+        
+        // Infernal Mage (ID 443) uses magic attacks and has no elemental weakness
+        assertEquals("Infernal Mage (magic attacker) should show magic weakness", "magic", NPCDataLoader.getWeakness(443));
         
         // Test NPCs with very low magic defense
         // Look for NPCs where magic defense is significantly lower than other defenses
@@ -201,4 +216,50 @@ public class NPCDataLoaderTest {
                               weaknessCount.containsKey("earth") || weaknessCount.containsKey("air");
         System.out.println("Has elemental weaknesses in data: " + hasElemental);
     }
-} 
\ No newline at end of file
+
+    @Test
+    public void testMonsterDataJoinAndNameFallback() {
+        // Ancient Guardian rubble (ID 10666) is only listed in monsterdata.csv
+        assertEquals("IDs joined from monsterdata.csv should have data", Integer.valueOf(7), NPCDataLoader.getMaxHit(10666));
+        
+        // Unknown IDs fall back to the record of an NPC with the same name
+        assertEquals(NpcRecord.MISSING, NPCDataLoader.getRecord(999999));
+        int byName = NPCDataLoader.getRecord(999999, "Abyssal demon");
+        assertEquals(8, NpcRecord.maxHit(byName));
+        assertEquals("Known IDs ignore the name", NPCDataLoader.getRecord(265), NPCDataLoader.getRecord(265, "Abyssal demon"));
+        assertEquals(NpcRecord.MISSING, NPCDataLoader.getRecord(999999, "Not a monster"));
+    }
+    
+    @Test
+    public void testOverrideFileReplacesBundledRecords() throws Exception {
+        Path directory = Files.createTempDirectory("npc-overrides");
+        Path file = directory.resolve(NPCDataLoader.OVERRIDE_FILE);
+        String csv = "id,max_hit,attack_type/0,aggressive,defence_stab,defence_slash,defence_crush,defence_magic,"
+            + "elemental_weakness_type,defence_ranged_light,defence_ranged_standard,defence_ranged_heavy\n"
+            + "415,12,stab,true,20,20,20,0,0,20,20,20\n";
+        try {
+            Files.write(file, csv.getBytes(StandardCharsets.UTF_8));
+            assertTrue(NPCDataLoader.loadOverrides(file));
+            assertEquals("Abyssal demon max hit should be overridden", Integer.valueOf(12), NPCDataLoader.getMaxHit(415));
+            assertEquals("Other NPCs keep their bundled data", Integer.valueOf(10), NPCDataLoader.getMaxHit(265));
+
+            // A malformed edit keeps the last good snapshot
+            Files.write(file, "id,max_hit\n415,oops\n".getBytes(StandardCharsets.UTF_8));
+            assertFalse(NPCDataLoader.loadOverrides(file));
+            assertEquals(Integer.valueOf(12), NPCDataLoader.getMaxHit(415));
+
+            // An ID far past any NPC is malformed, not a table sized to fit it
+            Files.write(file, csv.replace("415,12", "2000000000,12").getBytes(StandardCharsets.UTF_8));
+            assertFalse(NPCDataLoader.loadOverrides(file));
+            assertEquals(Integer.valueOf(12), NPCDataLoader.getMaxHit(415));
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(directory);
+        }
+
+        // Deleting the file reverts to the bundled data
+        assertTrue(NPCDataLoader.loadOverrides(file));
+        assertEquals(Integer.valueOf(8), NPCDataLoader.getMaxHit(415));
+        assertFalse("Nothing to revert the second time", NPCDataLoader.loadOverrides(file));
+    }
+}
@@ -0,0 +1,81 @@
+package com.dexhonsa;
+
+import org.junit.Test;
+import java.io.IOException;
+import java.io.StringReader;
+import static org.junit.Assert.*;
+
+public class NpcCsvParserTest {
+
+    private static final String HEADER = "id,name,combat_level,size,hitpoints,max_hit,attack_type/0,aggressive,poisonous,venomous,immune_poison,immune_venom,attack_level,strength_level,defence_level,magic_level,ranged_level,attack_bonus,strength_bonus,attack_magic,magic_bonus,attack_ranged,ranged_bonus,defence_stab,defence_slash,defence_crush,defence_magic,elemental_weakness_type,elemental_weakness_percent,defence_ranged_light,defence_ranged_standard,defence_ranged_heavy\n";
+    private static final String MOLANISK = "1,Molanisk,51,1,52,5,crush,TRUE,FALSE,FALSE,FALSE,FALSE,40,40,50,0,1,0,0,0,0,0,0,45,45,35,30,3,60,55,55,55\n";
+
+    @Test
+    public void testParsesRow() throws IOException {
+        NpcStatsTable table = NpcCsvParser.parse(new StringReader(HEADER + MOLANISK));
+        int record = table.get(1);
+        assertTrue("Molanisk should be present", NpcRecord.isPresent(record));
+        assertEquals(5, NpcRecord.maxHit(record));
+        assertTrue(NpcRecord.isAggressive(record));
+    }
+
+    @Test
+    public void testUnknownMaxHit() throws IOException {
+        String row = "514,Witch,25,1,10,,,FALSE,FALSE,FALSE,FALSE,FALSE,1,1,1,1,1,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0\n";
+        NpcStatsTable table = NpcCsvParser.parse(new StringReader(HEADER + row));
+        assertTrue(NpcRecord.isPresent(table.get(514)));
+        assertEquals("Empty max hit should be unknown", 0, NpcRecord.maxHit(table.get(514)));
+    }
+
+    @Test
+    public void testBindsColumnsByHeaderName() throws IOException {
+        String header = "max_hit,id,aggressive,attack_type/0,defence_stab,defence_slash,defence_crush,defence_magic,elemental_weakness_type,defence_ranged_light,defence_ranged_standard,defence_ranged_heavy\n";
+        String row = "12,7,false,\"Magic, melee\",50,50,50,50,4,50,50,50\n";
+        NpcStatsTable table = NpcCsvParser.parse(new StringReader(header + row));
+
+        int record = table.get(7);
+        assertEquals(12, NpcRecord.maxHit(record));
+        assertFalse(NpcRecord.isAggressive(record));
+        assertEquals("Elemental type 4 should be fire", Weakness.FIRE, NpcRecord.weakness(record));
+    }
+
+    @Test
+    public void testMagicAttackerWithoutElement() throws IOException {
+        String row = "443,Infernal Mage,66,1,60,8,magic,FALSE,FALSE,FALSE,FALSE,FALSE,1,1,60,75,1,0,0,0,0,0,0,0,0,0,40,0,0,0,0,0\n";
+        NpcStatsTable table = NpcCsvParser.parse(new StringReader(HEADER + row));
+        assertEquals(Weakness.MAGIC, NpcRecord.weakness(table.get(443)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsMissingColumn() throws IOException {
+        NpcCsvParser.parse(new StringReader("id,name\n1,Molanisk\n"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsShortRow() throws IOException {
+        NpcCsvParser.parse(new StringReader(HEADER + "2,Aberrant spectre,96,2\n"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsInvalidMaxHit() throws IOException {
+        NpcCsvParser.parse(new StringReader(HEADER + MOLANISK.replace(",5,crush,", ",five,crush,")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsDuplicateId() throws IOException {
+        NpcCsvParser.parse(new StringReader(HEADER + MOLANISK + MOLANISK));
+    }
+
+    @Test
+    public void testOptionalAlwaysAggressiveColumn() throws IOException {
+        String header = "id,max_hit,attack_type/0,aggressive,always_aggressive,defence_stab,defence_slash,defence_crush,defence_magic,elemental_weakness_type,defence_ranged_light,defence_ranged_standard,defence_ranged_heavy\n";
+        String rows = "7,12,crush,false,true,50,50,50,50,0,50,50,50\n"
+            + "8,12,crush,true,,50,50,50,50,0,50,50,50\n";
+        NpcStatsTable table = NpcCsvParser.parse(new StringReader(header + rows));
+
+        assertTrue(NpcRecord.isAlwaysAggressive(table.get(7)));
+        assertTrue("Always aggressive implies aggressive", NpcRecord.isAggressive(table.get(7)));
+        assertFalse(NpcRecord.isAlwaysAggressive(table.get(8)));
+        assertFalse("The column is optional", NpcRecord.isAlwaysAggressive(NpcCsvParser.parse(new StringReader(HEADER + MOLANISK)).get(1)));
+    }
+}
@@ -0,0 +1,107 @@
+package com.dexhonsa;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import java.util.EnumSet;
+import java.util.Map;
+import static org.junit.Assert.*;
+
+public class NpcDataServiceTest {
+
+    // Present, present, unknown and negative ids
+    private static final int[] IDS = {415, 265, 999999, -1};
+
+    @BeforeClass
+    public static void loadData() {
+        NPCDataLoader.loadData();
+    }
+
+    @Test
+    public void testBulkRecordsMatchSingleLookups() {
+        NpcDataService service = new NpcDataService(new NpcStatsStore());
+        int[] records = new int[IDS.length];
+        service.getRecords(IDS, records);
+        for (int i = 0; i < IDS.length; i++) {
+            assertEquals(NPCDataLoader.getRecord(IDS[i]), records[i]);
+        }
+        assertFalse(NpcRecord.isPresent(records[2]));
+
+        int[] maxHits = new int[IDS.length];
+        service.getMaxHits(IDS, maxHits);
+        assertArrayEquals(new int[] {8, 10, 0, 0}, maxHits);
+    }
+
+    @Test
+    public void testBulkRecordsFallBackToNames() {
+        NpcDataService service = new NpcDataService(new NpcStatsStore());
+        int[] ids = {-1, -1, 415};
+        String[] names = {"Abyssal demon", "Not an NPC", null};
+        int[] records = new int[8];
+        service.getRecords(ids, names, 3, records);
+        assertEquals(service.getRecord(-1, "Abyssal demon"), records[0]);
+        assertEquals(8, NpcRecord.maxHit(records[0]));
+        assertFalse(NpcRecord.isPresent(records[1]));
+        assertEquals(service.getRecord(415), records[2]);
+    }
+
+    @Test
+    public void testBulkStatsReadResidentColumns() {
+        NpcStatsStore store = new NpcStatsStore();
+        NpcDataService service = new NpcDataService(store);
+        int[] hitpoints = new int[IDS.length];
+        service.getStats(IDS, NpcStat.HITPOINTS, hitpoints);
+        for (int value : hitpoints) {
+            assertEquals("Column is not resident yet", NpcStatsStore.MISSING, value);
+        }
+
+        store.retain(EnumSet.of(NpcStat.HITPOINTS));
+        service.getStats(IDS, NpcStat.HITPOINTS, hitpoints);
+        for (int i = 0; i < IDS.length; i++) {
+            assertEquals(service.getStat(IDS[i], NpcStat.HITPOINTS), hitpoints[i]);
+        }
+        assertEquals(150, hitpoints[0]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testShortOutputArrayIsRejected() {
+        new NpcDataService(new NpcStatsStore()).getRecords(IDS, new int[IDS.length - 1]);
+    }
+
+    @Test
+    public void testMaxHitViewIsReadOnly() {
+        Map<Integer, Integer> view = new NpcDataService(new NpcStatsStore()).getMaxHits();
+        assertEquals(Integer.valueOf(8), view.get(415));
+        assertNull(view.get(999999));
+        assertNull(view.get("415"));
+        assertTrue(view.containsKey(265));
+
+        int entries = 0;
+        for (Map.Entry<Integer, Integer> entry : view.entrySet()) {
+            assertTrue(entry.getValue() > 0);
+            entries++;
+        }
+        assertEquals(view.size(), entries);
+
+        try {
+            view.put(415, 1);
+            fail("The view should be read-only");
+        } catch (UnsupportedOperationException expected) {
+            assertEquals(Integer.valueOf(8), view.get(415));
+        }
+    }
+
+    @Test
+    public void testVisitorSeesEveryRecord() {
+        NpcDataService service = new NpcDataService(new NpcStatsStore());
+        int[] withMaxHit = new int[1];
+        int visited = service.forEachRecord((npcId, record) -> {
+            assertTrue(NpcRecord.isPresent(record));
+            assertEquals(service.getRecord(npcId), record);
+            if (NpcRecord.maxHit(record) > 0) {
+                withMaxHit[0]++;
+            }
+        });
+        assertEquals(NPCDataLoader.snapshot().size(), visited);
+        assertEquals(service.getMaxHits().size(), withMaxHit[0]);
+    }
+}
@@ -0,0 +1,85 @@
+package com.dexhonsa;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class NpcFilterTest {
+
+    @Test
+    public void testEmptyListsAllowEverything() {
+        NpcFilter filter = NpcFilter.compile("", " , ");
+        assertFalse(filter.isActive());
+        assertTrue(filter.allows(415, "Abyssal demon"));
+        assertTrue(filter.allows(-1, null));
+        assertEquals(0, filter.memoised());
+    }
+
+    @Test
+    public void testIdsAndRanges() {
+        NpcFilter filter = NpcFilter.compile("415, 2005 - 2010,3000-3000", "");
+        assertTrue(filter.isActive());
+        assertTrue(filter.allows(415, "Abyssal demon"));
+        assertTrue(filter.allows(2005, "Lesser demon"));
+        assertTrue(filter.allows(2010, "Lesser demon"));
+        assertTrue(filter.allows(3000, "Anything"));
+        assertFalse(filter.allows(2011, "Lesser demon"));
+        assertFalse(filter.allows(416, "Abyssal demon"));
+    }
+
+    @Test
+    public void testWildcardNamesIgnoreCase() {
+        NpcFilter filter = NpcFilter.compile("*demon, cow, Green*dragon, a.b", "");
+        assertTrue(filter.allows(1, "Abyssal demon"));
+        assertTrue(filter.allows(2, "DEMON"));
+        assertTrue(filter.allows(3, "Cow"));
+        assertTrue(filter.allows(4, "Green dragon"));
+        assertTrue(filter.allows(5, "Green dragon"));
+        assertTrue(filter.allows(6, "A.b"));
+        assertFalse("No implicit wildcards", filter.allows(7, "Cow calf"));
+        assertFalse("Dots are literal", filter.allows(8, "axb"));
+        assertFalse(filter.allows(9, "Demonic gorilla"));
+        assertFalse(filter.allows(10, null));
+    }
+
+    @Test
+    public void testExcludeWinsOverInclude() {
+        NpcFilter filter = NpcFilter.compile("*dragon", "Blue dragon, 100-199");
+        assertTrue(filter.allows(50, "Red dragon"));
+        assertFalse(filter.allows(60, "Blue dragon"));
+        assertFalse(filter.allows(150, "Red dragon"));
+        assertFalse(filter.allows(70, "Cow"));
+
+        NpcFilter excludeOnly = NpcFilter.compile("", "*rat*");
+        assertTrue(excludeOnly.allows(1, "Cow"));
+        assertFalse(excludeOnly.allows(2, "Giant rat"));
+        assertFalse(excludeOnly.allows(3, "Ratty"));
+    }
+
+    @Test
+    public void testMalformedEntriesAreIgnored() {
+        NpcFilter filter = NpcFilter.compile("200-100, 99999999999, 70000, 42", "");
+        assertTrue(filter.isActive());
+        assertTrue(filter.allows(42, "Anything"));
+        assertFalse(filter.allows(150, "Anything"));
+        assertFalse(filter.allows(NpcFilter.MAX_ID, "Anything"));
+
+        assertFalse("Only ignored entries means no rules", NpcFilter.compile("200-100", "").isActive());
+    }
+
+    @Test
+    public void testResultsAreMemoisedPerComposition() {
+        NpcFilter filter = NpcFilter.compile("*demon", "");
+        assertTrue(filter.allows(415, "Abyssal demon"));
+        assertFalse(filter.allows(2790, "Cow"));
+        assertEquals(2, filter.memoised());
+
+        // Later checks reuse the stored result rather than matching the name again
+        assertTrue(filter.allows(415, "Cow"));
+        assertFalse(filter.allows(2790, "Abyssal demon"));
+        assertEquals(2, filter.memoised());
+
+        // Negative IDs are never memoised
+        assertTrue(filter.allows(-1, "Lesser demon"));
+        assertEquals(2, filter.memoised());
+    }
+}
@@ -0,0 +1,257 @@
+package com.dexhonsa;
+
+import org.junit.Assume;
+import org.junit.Test;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import javax.imageio.ImageIO;
+import net.runelite.api.NPC;
+import static org.junit.Assert.*;
+
+/**
+ * Renders the overlay headlessly through {@link OverlayHarness}.
+ *
+ * Golden images live in src/test/resources/golden and are drawn with the
+ * harness's bundled font and no antialiasing, so they match on every platform.
+ * After an intended change to the output, re-record them with
+ * {@code ./gradlew test -PupdateGoldens} and review the new images.
+ *
+ * The frame time check depends on the machine, so it only runs when a budget
+ * is given with {@code -PrenderBudgetMicros=<us>}. By default the 1,000 NPC
+ * scene is checked through work counters instead: projections, sprite
+ * composites and heap allocated per steady-state frame.
+ */
+public class NpcLevelOverlayTest {
+
+    private static final Path GOLDEN_DIR = Paths.get("src", "test", "resources", "golden");
+    private static final Path FAILURE_DIR = Paths.get("build", "golden-failures");
+    // Per-channel difference that still counts as a match, and the share of pixels allowed to differ
+    private static final int CHANNEL_TOLERANCE = 16;
+    private static final double PIXEL_TOLERANCE = 0.001;
+
+    private static final int BUDGET_NPCS = 1000;
+    // Enough frames for the JIT to compile the render loop
+    private static final int WARMUP_FRAMES = 1_000;
+    private static final int MEASURED_FRAMES = 200;
+    /** Median frame time allowed at 1,000 NPCs, 0 to skip the timing check */
+    private static final long FRAME_BUDGET_MICROS = Long.getLong("renderBudgetMicros", 0);
+    /** Heap allocated per steady-state frame; override with -DrenderBudgetBytes */
+    private static final long ALLOCATION_BUDGET_BYTES = Long.getLong("renderBudgetBytes", 4_096);
+    // Java2D's blit allocates a few Rectangles per drawImage unless the JIT happens to eliminate them
+    private static final long BLIT_ALLOWANCE_BYTES = 128;
+
+    private static OverlayHarness mixedScene() {
+        OverlayHarness harness = new OverlayHarness();
+        int centre = FakeClient.SCENE_SIZE / 2;
+        harness.npc(415, "Abyssal demon", 124, centre - 3, centre - 4);
+        harness.npc(265, "Blue dragon", 111, centre + 3, centre - 4);
+        harness.npc(2, "Aberrant spectre", 70, centre, centre - 7);
+        harness.npc(26, "Zombie", 13, centre - 5, centre - 10);
+        return harness;
+    }
+
+    @Test
+    public void testDrawsVisibleNpcs() {
+        OverlayHarness harness = mixedScene();
+        harness.stats.setEnabled(true);
+        BufferedImage frame = harness.render();
+
+        assertTrue("Labels should be drawn", paintedPixels(frame) > 0);
+        assertEquals(4, harness.stats.getNpcsDrawn());
+    }
+
+    @Test
+    public void testOnlyShowInCombatHidesIdleNpcs() {
+        OverlayHarness harness = new OverlayHarness(Collections.singletonMap("onlyShowInCombat", true));
+        harness.npc(415, "Abyssal demon", 124, FakeClient.SCENE_SIZE / 2, FakeClient.SCENE_SIZE / 2 - 4);
+
+        assertEquals(0, paintedPixels(harness.render()));
+    }
+
+    @Test
+    public void testNpcsBehindTheCameraAreNotDrawn() {
+        OverlayHarness harness = new OverlayHarness();
+        // The camera looks north from 14 tiles south of the scene centre
+        harness.npc(415, "Abyssal demon", 124, FakeClient.SCENE_SIZE / 2, FakeClient.SCENE_SIZE / 2 - 20);
+
+        assertEquals(0, paintedPixels(harness.render()));
+    }
+
+    @Test
+    public void testReducedDetailKeepsLabelsOnScreen() {
+        // Every frame is over a 1 us budget, so detail steps all the way down
+        OverlayHarness harness = new OverlayHarness(Collections.singletonMap("frameBudget", 1));
+        int centre = FakeClient.SCENE_SIZE / 2;
+        harness.npc(415, "Abyssal demon", 124, centre - 3, centre - 4);
+        harness.npc(265, "Blue dragon", 111, centre + 3, centre - 4);
+        NPC zombie = harness.npc(26, "Zombie", 13, centre - 5, centre - 10);
+        for (int i = 0; i < FrameBudget.STEP_DOWN_FRAMES * 4; i++) {
+            harness.render();
+        }
+        assertEquals(FrameBudget.Detail.ROUND_ROBIN, harness.overlay.getFrameBudget().getDetail());
+
+        harness.stats.setEnabled(true);
+        int frames = FrameBudget.LABEL_REFRESH_FRAMES * FrameBudget.ROUND_ROBIN_SLICES;
+        for (int i = 0; i < frames; i++) {
+            assertTrue("Labels should be drawn on every frame", paintedPixels(harness.render()) > 0);
+        }
+        assertEquals(3 * frames, harness.stats.getNpcsDrawn());
+        assertEquals("ROUND_ROBIN", harness.stats.getDetail());
+
+        // A despawned NPC's label goes at once, not at the next refresh
+        harness.registry.remove(zombie);
+        harness.stats.reset();
+        harness.render();
+        assertEquals(2, harness.stats.getNpcsDrawn());
+    }
+
+    @Test
+    public void testMixedSceneMatchesGolden() throws IOException {
+        assertMatchesGolden("mixed", mixedScene().render());
+    }
+
+    @Test
+    public void testStackedSceneMatchesGolden() throws IOException {
+        OverlayHarness harness = new OverlayHarness();
+        int centre = FakeClient.SCENE_SIZE / 2;
+        for (int i = 0; i < 3; i++) {
+            harness.npc(415, "Abyssal demon", 124, centre, centre - 6);
+        }
+        harness.npc(265, "Blue dragon", 111, centre + 1, centre - 6);
+        assertMatchesGolden("stacked", harness.render());
+    }
+
+    @Test
+    public void testCrowdMatchesGolden() throws IOException {
+        assertMatchesGolden("crowd", new OverlayHarness().populate(200).render());
+    }
+
+    @Test
+    public void testSteadyStateWorkAtThousandNpcs() {
+        OverlayHarness harness = new OverlayHarness().populate(BUDGET_NPCS);
+        BufferedImage frame = OverlayHarness.newFrame();
+        Graphics2D graphics = OverlayHarness.graphics(frame);
+        try {
+            for (int i = 0; i < WARMUP_FRAMES; i++) {
+                harness.render(graphics);
+            }
+
+            // With a still camera and still NPCs nothing is re-projected or re-composited
+            ProjectionEngine projection = harness.overlay.getProjection();
+            LabelSpriteCache sprites = harness.overlay.getLabelSprites();
+            long projected = projection.getProjected();
+            long composited = sprites.getMisses();
+            harness.stats.setEnabled(true);
+            for (int i = 0; i < MEASURED_FRAMES; i++) {
+                harness.render(graphics);
+            }
+            assertEquals("Projections in steady state", projected, projection.getProjected());
+            assertEquals("Sprites composited in steady state", composited, sprites.getMisses());
+            assertTrue("Labels should be drawn", harness.stats.getNpcsDrawn() > 0);
+            assertEquals("Every frame draws the same labels", 0, harness.stats.getNpcsDrawn() % MEASURED_FRAMES);
+            long drawnPerFrame = harness.stats.getNpcsDrawn() / MEASURED_FRAMES;
+            harness.stats.setEnabled(false);
+
+            java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            Assume.assumeTrue("Allocation counters are not available on this JVM",
+                threads instanceof com.sun.management.ThreadMXBean
+                    && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported());
+            com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+            long thread = Thread.currentThread().getId();
+            long before = allocations.getThreadAllocatedBytes(thread);
+            for (int i = 0; i < MEASURED_FRAMES; i++) {
+                harness.render(graphics);
+            }
+            long perFrame = (allocations.getThreadAllocatedBytes(thread) - before) / MEASURED_FRAMES;
+            long budget = ALLOCATION_BUDGET_BYTES + drawnPerFrame * BLIT_ALLOWANCE_BYTES;
+            assertTrue("Each frame allocated " + perFrame + " bytes at " + BUDGET_NPCS + " NPCs, budget " + budget,
+                perFrame <= budget);
+        } finally {
+            graphics.dispose();
+        }
+    }
+
+    @Test
+    public void testFrameTimeAtThousandNpcs() {
+        Assume.assumeTrue("Frame time is only checked with -PrenderBudgetMicros", FRAME_BUDGET_MICROS > 0);
+        OverlayHarness harness = new OverlayHarness().populate(BUDGET_NPCS);
+        BufferedImage frame = OverlayHarness.newFrame();
+        Graphics2D graphics = OverlayHarness.graphics(frame);
+        try {
+            for (int i = 0; i < WARMUP_FRAMES; i++) {
+                harness.render(graphics);
+            }
+
+            long[] micros = new long[MEASURED_FRAMES];
+            for (int i = 0; i < MEASURED_FRAMES; i++) {
+                long start = System.nanoTime();
+                harness.render(graphics);
+                micros[i] = (System.nanoTime() - start) / 1_000;
+            }
+            Arrays.sort(micros);
+            long median = micros[MEASURED_FRAMES / 2];
+            assertTrue("Median frame took " + median + " us at " + BUDGET_NPCS + " NPCs, budget " + FRAME_BUDGET_MICROS + " us",
+                median <= FRAME_BUDGET_MICROS);
+        } finally {
+            graphics.dispose();
+        }
+    }
+
+    private static int paintedPixels(BufferedImage image) {
+        int painted = 0;
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                if (image.getRGB(x, y) >>> 24 != 0) {
+                    painted++;
+                }
+            }
+        }
+        return painted;
+    }
+
+    private static void assertMatchesGolden(String name, BufferedImage actual) throws IOException {
+        Path golden = GOLDEN_DIR.resolve(name + ".png");
+        if (Boolean.getBoolean("updateGoldens")) {
+            Files.createDirectories(GOLDEN_DIR);
+            ImageIO.write(actual, "png", golden.toFile());
+            return;
+        }
+        assertTrue("No golden image " + golden + "; record it with -PupdateGoldens", Files.isRegularFile(golden));
+
+        BufferedImage expected = ImageIO.read(golden.toFile());
+        assertEquals("Golden " + name + " width", expected.getWidth(), actual.getWidth());
+        assertEquals("Golden " + name + " height", expected.getHeight(), actual.getHeight());
+
+        int mismatched = 0;
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                if (!similar(expected.getRGB(x, y), actual.getRGB(x, y))) {
+                    mismatched++;
+                }
+            }
+        }
+        int allowed = (int) (expected.getWidth() * expected.getHeight() * PIXEL_TOLERANCE);
+        if (mismatched > allowed) {
+            Files.createDirectories(FAILURE_DIR);
+            Path failure = FAILURE_DIR.resolve(name + ".png");
+            ImageIO.write(actual, "png", failure.toFile());
+            fail(mismatched + " pixels differ from golden " + name + " (allowed " + allowed + "); actual frame written to " + failure);
+        }
+    }
+
+    private static boolean similar(int expected, int actual) {
+        for (int shift = 0; shift < 32; shift += 8) {
+            if (Math.abs((expected >>> shift & 0xFF) - (actual >>> shift & 0xFF)) > CHANNEL_TOLERANCE) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,115 @@
+package com.dexhonsa;
+
+import org.junit.Test;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import static org.junit.Assert.*;
+
+public class NpcRecordTest {
+
+    @Test
+    public void testPackRoundTrip() {
+        int record = NpcRecord.pack(25, Weakness.HEAVY_RANGED, true);
+        assertTrue("Packed record should be present", NpcRecord.isPresent(record));
+        assertEquals("Max hit should survive packing", 25, NpcRecord.maxHit(record));
+        assertEquals("Weakness should survive packing", Weakness.HEAVY_RANGED, NpcRecord.weakness(record));
+        assertTrue("Aggressive flag should survive packing", NpcRecord.isAggressive(record));
+    }
+
+    @Test
+    public void testEveryWeaknessFits() {
+        for (Weakness weakness : Weakness.values()) {
+            int record = NpcRecord.pack(0, weakness, false);
+            assertEquals(weakness, NpcRecord.weakness(record));
+            assertFalse(NpcRecord.isAggressive(record));
+        }
+    }
+
+    @Test
+    public void testMissingRecord() {
+        assertFalse("MISSING should not be present", NpcRecord.isPresent(NpcRecord.MISSING));
+        assertEquals(0, NpcRecord.maxHit(NpcRecord.MISSING));
+        assertNull(NpcRecord.weakness(NpcRecord.MISSING));
+        assertFalse(NpcRecord.isAggressive(NpcRecord.MISSING));
+    }
+
+    @Test
+    public void testObservedMaxHitKeepsOtherFields() {
+        int record = NpcRecord.observed(NpcRecord.pack(8, Weakness.STAB, true), 12);
+        assertTrue(NpcRecord.isObserved(record));
+        assertEquals(12, NpcRecord.maxHit(record));
+        assertEquals(Weakness.STAB, NpcRecord.weakness(record));
+        assertTrue(NpcRecord.isAggressive(record));
+        assertFalse(NpcRecord.isObserved(NpcRecord.pack(8, Weakness.STAB, true)));
+
+        int unknown = NpcRecord.observed(NpcRecord.MISSING, 5);
+        assertTrue("Observing an unknown NPC should create a record", NpcRecord.isPresent(unknown));
+        assertEquals(5, NpcRecord.maxHit(unknown));
+        assertNull(NpcRecord.weakness(unknown));
+    }
+
+    @Test
+    public void testDenseTableLookup() {
+        NpcStatsTable table = new NpcStatsTable(4);
+        table.put(14779, NpcRecord.pack(8, Weakness.MAGIC, false));
+        table.trim();
+
+        assertEquals(1, table.size());
+        assertEquals(8, NpcRecord.maxHit(table.get(14779)));
+        assertEquals(NpcRecord.MISSING, table.get(3));
+        assertEquals(NpcRecord.MISSING, table.get(-1));
+        assertEquals(NpcRecord.MISSING, table.get(999999));
+    }
+
+    @Test
+    public void testMergeReplacesOnlyOverriddenRecords() {
+        NpcStatsTable bundled = new NpcStatsTable(4);
+        bundled.put(1, NpcRecord.pack(8, Weakness.STAB, false));
+        bundled.put(2, NpcRecord.pack(3, Weakness.CRUSH, true));
+        NpcStatsTable overrides = new NpcStatsTable(4);
+        overrides.put(2, NpcRecord.pack(5, Weakness.CRUSH, true));
+        overrides.put(9000, NpcRecord.pack(40, Weakness.MAGIC, false));
+
+        NpcStatsTable merged = bundled.merge(overrides);
+
+        assertEquals(3, merged.size());
+        assertEquals(8, NpcRecord.maxHit(merged.get(1)));
+        assertEquals(5, NpcRecord.maxHit(merged.get(2)));
+        assertEquals(40, NpcRecord.maxHit(merged.get(9000)));
+        assertEquals("Inputs are left untouched", 3, NpcRecord.maxHit(bundled.get(2)));
+        assertEquals(NpcRecord.MISSING, bundled.get(9000));
+    }
+
+    @Test
+    public void testNameIndexNormalisesNames() {
+        NpcStatsTable table = new NpcStatsTable(4);
+        int dragon = NpcRecord.pack(10, Weakness.STAB, true);
+        table.putName("Green dragon#Level_79", dragon);
+
+        assertEquals(dragon, table.getByName("Green dragon"));
+        assertEquals(dragon, table.getByName("  green_DRAGON "));
+        assertEquals(dragon, table.getByName("<col=ffff00>Green\u00A0dragon</col>"));
+        assertEquals(NpcRecord.MISSING, table.getByName("Green dragons"));
+        assertEquals(NpcRecord.MISSING, table.getByName(null));
+    }
+
+    @Test
+    public void testWriteReadRoundTrip() throws IOException {
+        NpcStatsTable table = new NpcStatsTable(4);
+        table.put(415, NpcRecord.pack(8, Weakness.SLASH, true));
+        table.putName("Abyssal demon", table.get(415));
+        table.putName("Cow", NpcRecord.pack(1, Weakness.STAB, false));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        table.write(new DataOutputStream(bytes));
+        NpcStatsTable read = NpcStatsTable.read(ByteBuffer.wrap(bytes.toByteArray()));
+
+        assertEquals(1, read.size());
+        assertEquals(table.get(415), read.get(415));
+        assertEquals(2, read.nameCount());
+        assertEquals(table.get(415), read.getByName("abyssal demon"));
+        assertEquals(1, NpcRecord.maxHit(read.getByName("Cow")));
+    }
+}
@@ -0,0 +1,171 @@
+package com.dexhonsa;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import net.runelite.api.NPC;
+import net.runelite.api.Player;
+import static org.junit.Assert.*;
+
+public class NpcRegistryTest {
+
+    @BeforeClass
+    public static void loadData() {
+        NPCDataLoader.loadData();
+    }
+
+    @Test
+    public void testDangerTiers() {
+        assertEquals(DangerTier.UNKNOWN, DangerTier.of(0, 99));
+        assertEquals(DangerTier.UNKNOWN, DangerTier.of(20, 0));
+        assertEquals(DangerTier.SAFE, DangerTier.of(8, 99));
+        assertEquals(DangerTier.RISKY, DangerTier.of(25, 99));
+        assertEquals(DangerTier.TWO_HITS, DangerTier.of(50, 99));
+        assertEquals(DangerTier.ONE_HIT, DangerTier.of(99, 99));
+    }
+
+    @Test
+    public void testHitpointChangesReflagLabels() {
+        NpcRegistry registry = new NpcRegistry(FakeClient.config(
+            Collections.singletonMap("dangerDisplay", NpcLevelConfig.DangerDisplay.FLAG)), new NpcDataService(new NpcStatsStore()), new MaxHitLearner());
+        registry.setHitpoints(99);
+        // Abyssal demon, max hit 8
+        NPC demon = new FakeClient().npc(415, "Abyssal demon", 124, 50, 50);
+        registry.add(demon);
+
+        TrackedNpc entry = registry.getEligible().get(0);
+        assertEquals(DangerTier.SAFE, entry.danger);
+        assertEquals("124 [8]", entry.label);
+
+        registry.setHitpoints(30);
+        assertEquals(DangerTier.RISKY, entry.danger);
+        assertEquals("124 [8!]", entry.label);
+
+        registry.setHitpoints(16);
+        assertEquals("124 [8!!]", entry.label);
+
+        registry.setHitpoints(8);
+        assertEquals(DangerTier.ONE_HIT, entry.danger);
+        assertEquals("124 [8!!!]", entry.label);
+    }
+
+    @Test
+    public void testColourModeLeavesLabelText() {
+        NpcRegistry registry = new NpcRegistry(FakeClient.config(
+            Collections.singletonMap("dangerDisplay", NpcLevelConfig.DangerDisplay.COLOUR)), new NpcDataService(new NpcStatsStore()), new MaxHitLearner());
+        registry.add(new FakeClient().npc(415, "Abyssal demon", 124, 50, 50));
+        registry.setHitpoints(8);
+
+        TrackedNpc entry = registry.getEligible().get(0);
+        assertEquals(DangerTier.ONE_HIT, entry.danger);
+        assertEquals("124 [8]", entry.label);
+    }
+
+    @Test
+    public void testHitpointsAppearOnceColumnIsResident() {
+        NpcStatsStore statsStore = new NpcStatsStore();
+        NpcRegistry registry = new NpcRegistry(FakeClient.config(
+            Collections.singletonMap("showHitpoints", true)), new NpcDataService(statsStore), new MaxHitLearner());
+        registry.setHitpoints(99);
+        registry.add(new FakeClient().npc(415, "Abyssal demon", 124, 50, 50));
+        assertEquals("124 [8]", registry.getEligible().get(0).label);
+
+        statsStore.retain(EnumSet.of(NpcStat.HITPOINTS));
+        registry.invalidate();
+        assertEquals("124 [8] 150hp", registry.getEligible().get(0).label);
+    }
+
+    @Test
+    public void testAttackerMustBeTheOnlyNpcInteracting() {
+        FakeClient fake = new FakeClient();
+        Player player = fake.player(70, 50, 50);
+        NpcRegistry registry = new NpcRegistry(FakeClient.config(), new NpcDataService(new NpcStatsStore()), new MaxHitLearner());
+        NPC demon = fake.npc(415, "Abyssal demon", 124, 51, 50);
+        NPC dragon = fake.npc(265, "Blue dragon", 111, 52, 50);
+        registry.add(demon);
+        registry.add(dragon);
+        assertNull(registry.findAttacker(player));
+
+        fake.interact(demon, player);
+        assertSame(demon, registry.findAttacker(player));
+
+        fake.interact(dragon, player);
+        assertNull("Damage from two attackers cannot be attributed", registry.findAttacker(player));
+    }
+
+    @Test
+    public void testObservedMaxHitIsMarked() throws IOException {
+        MaxHitLearner learner = new MaxHitLearner(Files.createTempDirectory("max-hits").resolve(MaxHitLearner.FILE));
+        NpcRegistry registry = new NpcRegistry(FakeClient.config(Collections.singletonMap("learnMaxHits", true)),
+            new NpcDataService(new NpcStatsStore()), learner);
+        FakeClient fake = new FakeClient();
+        // Not in the dataset, so its max hit can be learned
+        NPC unknown = fake.npc(60_000, "Unlisted guard", 40, 50, 50);
+        NPC demon = fake.npc(415, "Abyssal demon", 124, 52, 50);
+        registry.add(unknown);
+        registry.add(demon);
+        assertEquals("40", registry.getEligible().get(0).label);
+
+        learner.record(60_000, 12);
+        learner.record(415, 30);
+        registry.update(60_000);
+        assertEquals("40 [~12]", registry.getEligible().get(0).label);
+
+        registry.invalidate();
+        assertEquals("A hit above the dataset max hit flags it as stale", "124 [30+]", registry.getEligible().get(1).label);
+
+        registry.setSettings(RenderSettings.of(FakeClient.config()));
+        assertEquals("Learned max hits are hidden while learning is off", "40", registry.getEligible().get(0).label);
+        assertEquals("124 [8]", registry.getEligible().get(1).label);
+    }
+
+    @Test
+    public void testFilterListsApplyOnConfigChange() {
+        FakeClient fake = new FakeClient();
+        NpcRegistry registry = new NpcRegistry(FakeClient.config(), new NpcDataService(new NpcStatsStore()), new MaxHitLearner());
+        registry.add(fake.npc(415, "Abyssal demon", 124, 50, 50));
+        registry.add(fake.npc(265, "Blue dragon", 111, 52, 50));
+        registry.add(fake.npc(2790, "Cow", 2, 54, 50));
+        assertEquals(3, registry.getEligible().size());
+
+        Map<String, Object> overrides = new HashMap<>();
+        overrides.put("includeNpcs", "*demon, *dragon");
+        overrides.put("excludeNpcs", "265");
+        registry.setSettings(RenderSettings.of(FakeClient.config(overrides)));
+        assertEquals(1, registry.getEligible().size());
+        assertEquals(415, registry.getEligible().get(0).npc.getId());
+    }
+
+    @Test
+    public void testVarbitChangesOnlyResolveChangedTransforms() {
+        FakeClient fake = new FakeClient();
+        NpcRegistry registry = new NpcRegistry(FakeClient.config(), new NpcDataService(new NpcStatsStore()), new MaxHitLearner());
+        NPC plain = fake.npc(415, "Abyssal demon", 124, 50, 50);
+        NPC shifting = fake.npc(265, "Blue dragon", 111, 52, 50);
+        fake.transform(shifting, 265, "Blue dragon", 111);
+        registry.add(plain);
+        registry.add(shifting);
+        TrackedNpc plainEntry = registry.getEligible().get(0);
+        TrackedNpc shiftingEntry = registry.getEligible().get(1);
+        String plainLabel = plainEntry.label;
+        String shiftingLabel = shiftingEntry.label;
+
+        // Unrelated varbits leave every entry as it was
+        registry.checkTransforms();
+        assertEquals(2, registry.getEligible().size());
+        assertSame(plainLabel, plainEntry.label);
+        assertSame(shiftingLabel, shiftingEntry.label);
+
+        fake.transform(shifting, 2790, "Cow", 2);
+        registry.checkTransforms();
+        registry.checkTransforms();
+        assertEquals(2, registry.getEligible().size());
+        assertEquals("2 [1]", shiftingEntry.label);
+        assertSame("NPCs without transforms are not re-resolved", plainLabel, plainEntry.label);
+    }
+}
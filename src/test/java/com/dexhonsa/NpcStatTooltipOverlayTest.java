@@ -0,0 +1,140 @@
+package com.dexhonsa;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import net.runelite.api.NPC;
+import net.runelite.client.ui.overlay.tooltip.Tooltip;
+import net.runelite.client.ui.overlay.tooltip.TooltipManager;
+import static org.junit.Assert.*;
+
+public class NpcStatTooltipOverlayTest {
+
+    private static final NpcStatsStore STATS = new NpcStatsStore();
+
+    @BeforeClass
+    public static void loadData() {
+        NPCDataLoader.loadData();
+        STATS.retain(NpcStatTooltipOverlay.STATS);
+    }
+
+    @Test
+    public void testStatBlock() {
+        // Abyssal demon
+        String text = NpcStatTooltipOverlay.format(STATS, 415, "Abyssal demon", 124, NPCDataLoader.getRecord(415));
+        assertEquals("Abyssal demon (level 124)"
+            + "</br>Hitpoints: 150"
+            + "</br>Max hit: 8 (stab)"
+            + "</br>Defence: +20 stab, +20 slash, +20 crush"
+            + "</br>Defence: 0 magic, +20/+20/+20 ranged (light/standard/heavy)"
+            + "</br>Not aggressive", text);
+    }
+
+    @Test
+    public void testStaleMaxHitIsMarked() {
+        int stale = NpcRecord.stale(NPCDataLoader.getRecord(415), 11);
+        String text = NpcStatTooltipOverlay.format(new NpcStatsStore(), 415, "Abyssal demon", 124, stale);
+        assertEquals("Abyssal demon (level 124)</br>Max hit: 11, observed above the NPC data</br>Not aggressive", text);
+    }
+
+    @Test
+    public void testMissingStatsAreLeftOut() {
+        String text = NpcStatTooltipOverlay.format(new NpcStatsStore(), 415, "Abyssal demon", 124, NpcRecord.MISSING);
+        assertEquals("Abyssal demon (level 124)", text);
+    }
+
+    private static NpcStatTooltipOverlay overlay(FakeClient fake, Map<String, Object> config, TooltipManager tooltips,
+        NpcRegistry registry) {
+        NpcLevelConfig settings = FakeClient.config(config);
+        for (NPC npc : fake.getNpcs()) {
+            registry.add(npc);
+        }
+        return new NpcStatTooltipOverlay(fake.getClient(), settings, tooltips, STATS, registry);
+    }
+
+    private static NpcRegistry registry() {
+        return new NpcRegistry(FakeClient.config(), new NpcDataService(STATS), new MaxHitLearner());
+    }
+
+    @Test
+    public void testTooltipIsMemoisedPerComposition() {
+        List<Tooltip> shown = new ArrayList<>();
+        TooltipManager tooltips = new TooltipManager() {
+            @Override
+            public void add(Tooltip tooltip) {
+                shown.add(tooltip);
+            }
+        };
+        FakeClient fake = new FakeClient();
+        NPC first = fake.npc(415, "Abyssal demon", 124, 50, 50);
+        NPC second = fake.npc(415, "Abyssal demon", 124, 51, 50);
+        NPC other = fake.npc(265, "Blue dragon", 111, 52, 50);
+        NpcStatTooltipOverlay overlay = overlay(fake, Collections.singletonMap("showStatTooltip", true), tooltips, registry());
+
+        overlay.render(null);
+        assertTrue("Nothing is hovered", shown.isEmpty());
+
+        fake.hover(first);
+        overlay.render(null);
+        fake.hover(other);
+        overlay.render(null);
+        fake.hover(second);
+        overlay.render(null);
+        assertEquals(3, shown.size());
+        assertSame(shown.get(0), shown.get(2));
+        assertNotSame(shown.get(0), shown.get(1));
+
+        overlay.invalidate();
+        overlay.render(null);
+        assertNotSame(shown.get(0), shown.get(3));
+
+        // Dropping one composition keeps the others
+        fake.hover(other);
+        overlay.render(null);
+        overlay.invalidate(415);
+        overlay.render(null);
+        assertSame(shown.get(4), shown.get(5));
+        fake.hover(first);
+        overlay.render(null);
+        assertNotSame(shown.get(3), shown.get(6));
+
+        // Off by default, and follows the settings pushed on ConfigChanged
+        NpcStatTooltipOverlay disabled = overlay(new FakeClient(), Collections.emptyMap(), tooltips, registry());
+        disabled.render(null);
+        assertEquals(7, shown.size());
+        overlay.setSettings(RenderSettings.of(FakeClient.config()));
+        overlay.render(null);
+        assertEquals(7, shown.size());
+    }
+
+    @Test
+    public void testTransformedNpcShowsItsCurrentForm() {
+        List<Tooltip> shown = new ArrayList<>();
+        TooltipManager tooltips = new TooltipManager() {
+            @Override
+            public void add(Tooltip tooltip) {
+                shown.add(tooltip);
+            }
+        };
+        FakeClient fake = new FakeClient();
+        NPC plain = fake.npc(265, "Blue dragon", 111, 50, 50);
+        NPC shifting = fake.npc(265, "Blue dragon", 111, 52, 50);
+        NpcRegistry registry = registry();
+        NpcStatTooltipOverlay overlay = overlay(fake, Collections.singletonMap("showStatTooltip", true), tooltips, registry);
+
+        fake.hover(plain);
+        overlay.render(null);
+
+        // A varbit turns the NPC into another form while its NPC ID stays the same
+        fake.transform(shifting, 2790, "Cow", 2).set(shifting, "getId", 265);
+        registry.checkTransforms();
+        fake.hover(shifting);
+        overlay.render(null);
+        assertEquals(2, shown.size());
+        assertTrue(shown.get(0).getText().startsWith("Blue dragon (level 111)"));
+        assertTrue("The other form's cached text must not be shown", shown.get(1).getText().startsWith("Cow (level 2)"));
+    }
+}
@@ -0,0 +1,84 @@
+package com.dexhonsa;
+
+import org.junit.Test;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.EnumSet;
+import static org.junit.Assert.*;
+
+public class NpcStatsStoreTest {
+
+    private static final String CSV = "id,name,hitpoints,max_hit,attack_type/0,aggressive,defence_magic\n"
+        + "2,Goblin,5,1,crush,TRUE,-42\n"
+        + "9000,Giant,40000,,,FALSE,10000\n"
+        + "7,Goblin,5,2,stab,false,-42\n";
+
+    private static NpcStatsStore store(String csv) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            assertEquals(3, NpcStatsStoreWriter.write(new StringReader(csv), out));
+        }
+        byte[] file = bytes.toByteArray();
+        return new NpcStatsStore(() -> new ByteArrayInputStream(file));
+    }
+
+    @Test
+    public void testColumnsLoadOnlyWhenRetained() throws IOException {
+        NpcStatsStore store = store(CSV);
+        assertFalse(store.isResident(NpcStat.HITPOINTS));
+        assertEquals(NpcStatsStore.MISSING, store.getInt(2, NpcStat.HITPOINTS));
+
+        store.retain(EnumSet.of(NpcStat.HITPOINTS));
+        assertTrue(store.isResident(NpcStat.HITPOINTS));
+        assertFalse(store.isResident(NpcStat.MAX_HIT));
+        assertEquals(5, store.getInt(2, NpcStat.HITPOINTS));
+        assertEquals(40000, store.getInt(9000, NpcStat.HITPOINTS));
+        assertEquals(NpcStatsStore.MISSING, store.getInt(2, NpcStat.MAX_HIT));
+
+        store.retain(Collections.emptySet());
+        assertFalse(store.isResident(NpcStat.HITPOINTS));
+        assertEquals(0, store.getResidentBytes());
+    }
+
+    @Test
+    public void testValuesRoundTrip() throws IOException {
+        NpcStatsStore store = store(CSV);
+        store.retain(EnumSet.allOf(NpcStat.class));
+
+        assertEquals("Goblin", store.getString(7, NpcStat.NAME));
+        assertEquals("crush", store.getString(2, NpcStat.ATTACK_TYPE));
+        assertNull(store.getString(9000, NpcStat.ATTACK_TYPE));
+        assertEquals(2, store.getInt(7, NpcStat.MAX_HIT));
+        assertEquals(NpcStatsStore.MISSING, store.getInt(9000, NpcStat.MAX_HIT));
+        assertEquals(-42, store.getInt(2, NpcStat.DEFENCE_MAGIC));
+        assertEquals(10000, store.getInt(9000, NpcStat.DEFENCE_MAGIC));
+        assertTrue(store.getBoolean(2, NpcStat.AGGRESSIVE));
+        assertFalse(store.getBoolean(7, NpcStat.AGGRESSIVE));
+
+        // Unknown NPCs and columns absent from the CSV
+        assertEquals(NpcStatsStore.MISSING, store.getInt(3, NpcStat.HITPOINTS));
+        assertEquals(NpcStatsStore.MISSING, store.getInt(20000, NpcStat.HITPOINTS));
+        assertFalse(store.isResident(NpcStat.SIZE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateIdFails() throws IOException {
+        store(CSV + "2,Goblin,5,1,crush,TRUE,-42\n");
+    }
+
+    @Test
+    public void testBundledStats() {
+        NpcStatsStore store = new NpcStatsStore();
+        store.retain(EnumSet.of(NpcStat.HITPOINTS, NpcStat.NAME, NpcStat.DEFENCE_LEVEL, NpcStat.POISONOUS));
+
+        // Abyssal demon
+        assertEquals(150, store.getInt(415, NpcStat.HITPOINTS));
+        assertEquals(135, store.getInt(415, NpcStat.DEFENCE_LEVEL));
+        assertEquals("Abyssal demon", store.getString(415, NpcStat.NAME));
+        assertFalse(store.getBoolean(415, NpcStat.POISONOUS));
+    }
+}
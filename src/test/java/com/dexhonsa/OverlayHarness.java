@@ -0,0 +1,118 @@
+package com.dexhonsa;
+
+import java.awt.Font;
+import java.awt.FontFormatException;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Map;
+import net.runelite.api.NPC;
+
+/**
+ * Drives {@link NpcLevelOverlay#render(Graphics2D)} headlessly: a
+ * {@link FakeClient} supplies the player, NPCs and camera, and each frame is
+ * drawn into an offscreen image the size of the viewport.
+ */
+final class OverlayHarness {
+
+    /**
+     * Font bundled with the tests, so label sprites do not depend on the
+     * platform's fonts. Drawn without antialiasing or fractional metrics, the
+     * same glyphs come out on every platform and golden images can be shared.
+     */
+    static final Font FONT = loadFont("/fonts/DejaVuSansMono.ttf", 12f);
+
+    final FakeClient fake = new FakeClient();
+    final NpcRegistry registry;
+    final NpcLevelOverlay overlay;
+    final OverlayStats stats = new OverlayStats();
+
+    OverlayHarness() {
+        this(Collections.emptyMap());
+    }
+
+    /**
+     * @param configOverrides config items by key name, the rest keep their defaults
+     */
+    OverlayHarness(Map<String, Object> configOverrides) {
+        NPCDataLoader.loadData();
+        NpcLevelConfig config = FakeClient.config(configOverrides);
+        registry = new NpcRegistry(config, new NpcDataService(new NpcStatsStore()), new MaxHitLearner());
+        overlay = new NpcLevelOverlay(fake.getClient(), config, registry, stats);
+        overlay.setIcons(OverlayIcons.load());
+        fake.player(70, FakeClient.SCENE_SIZE / 2, FakeClient.SCENE_SIZE / 2);
+    }
+
+    /**
+     * Add an NPC on a scene tile and track it, as NpcSpawned would
+     */
+    NPC npc(int id, String name, int combatLevel, int sceneX, int sceneY) {
+        NPC npc = fake.npc(id, name, combatLevel, sceneX, sceneY);
+        registry.add(npc);
+        return npc;
+    }
+
+    /**
+     * Add a grid of NPCs around the player, see {@link FakeClient#populate(int)}
+     */
+    OverlayHarness populate(int count) {
+        int first = fake.getNpcs().size();
+        fake.populate(count);
+        for (int i = first; i < fake.getNpcs().size(); i++) {
+            registry.add(fake.getNpcs().get(i));
+        }
+        return this;
+    }
+
+    /**
+     * Offscreen graphics for {@link #render(Graphics2D)}, using {@link #FONT}
+     * with antialiasing and fractional metrics off
+     */
+    static Graphics2D graphics(BufferedImage image) {
+        Graphics2D graphics = image.createGraphics();
+        graphics.setFont(FONT);
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+        graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_OFF);
+        graphics.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_OFF);
+        return graphics;
+    }
+
+    static BufferedImage newFrame() {
+        return new BufferedImage(FakeClient.VIEWPORT_WIDTH, FakeClient.VIEWPORT_HEIGHT, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    /**
+     * Draw one frame into a fresh transparent image
+     */
+    BufferedImage render() {
+        BufferedImage image = newFrame();
+        Graphics2D graphics = graphics(image);
+        try {
+            overlay.render(graphics);
+        } finally {
+            graphics.dispose();
+        }
+        return image;
+    }
+
+    void render(Graphics2D graphics) {
+        overlay.render(graphics);
+    }
+
+    private static Font loadFont(String resource, float size) {
+        try (InputStream in = OverlayHarness.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing test font " + resource);
+            }
+            return Font.createFont(Font.TRUETYPE_FONT, in).deriveFont(size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (FontFormatException e) {
+            throw new IllegalStateException("Unreadable test font " + resource, e);
+        }
+    }
+}
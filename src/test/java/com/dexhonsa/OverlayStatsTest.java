@@ -0,0 +1,53 @@
+package com.dexhonsa;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class OverlayStatsTest {
+
+    @Test
+    public void testBucketsCoverTheirValues() {
+        for (long micros = 0; micros < 200_000; micros += 7) {
+            int bucket = OverlayStats.bucket(micros);
+            assertTrue("Value should not exceed its bucket", micros <= OverlayStats.bucketUpperBound(bucket));
+            if (bucket > 0) {
+                assertTrue("Value should exceed the previous bucket", micros > OverlayStats.bucketUpperBound(bucket - 1));
+            }
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+        OverlayStats stats = new OverlayStats();
+        for (int i = 1; i <= 100; i++) {
+            stats.recordFrame(i * 100_000L, 10, 5, 1);
+        }
+
+        assertEquals(100, stats.getFrames());
+        assertEquals("p50 should be within bucket error", 5_000, stats.getRenderP50Micros(), 5_000 * 0.07);
+        assertEquals("p99 should be within bucket error", 9_900, stats.getRenderP99Micros(), 9_900 * 0.07);
+        assertEquals(10_000, stats.getRenderMaxMicros());
+        assertEquals(1_000, stats.getNpcsConsidered());
+        assertEquals(500, stats.getNpcsDrawn());
+        assertEquals(100, stats.getLookupMisses());
+    }
+
+    @Test
+    public void testCacheRatesAndReset() {
+        OverlayStats stats = new OverlayStats();
+        stats.recordIconCache(true);
+        stats.recordIconCache(true);
+        stats.recordIconCache(true);
+        stats.recordIconCache(false);
+        stats.recordLabelCache(9, 1);
+
+        assertEquals(0.75, stats.getIconCacheHitRate(), 1e-9);
+        assertEquals(0.9, stats.getLabelCacheHitRate(), 1e-9);
+
+        stats.reset();
+        stats.recordLabelCache(10, 1);
+        assertEquals("Label rate should only count lookups since reset", 1.0, stats.getLabelCacheHitRate(), 1e-9);
+        assertEquals(0, stats.getFrames());
+        assertEquals(0, stats.getRenderP99Micros());
+    }
+}
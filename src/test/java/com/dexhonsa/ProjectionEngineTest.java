@@ -0,0 +1,131 @@
+package com.dexhonsa;
+
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.List;
+import net.runelite.api.Client;
+import net.runelite.api.NPC;
+import net.runelite.api.Perspective;
+import net.runelite.api.Point;
+import static org.junit.Assert.*;
+
+public class ProjectionEngineTest {
+
+    private static final int Z_OFFSET = 40;
+
+    private static List<TrackedNpc> track(FakeClient fake) {
+        List<TrackedNpc> tracked = new ArrayList<>();
+        for (NPC npc : fake.getNpcs()) {
+            tracked.add(new TrackedNpc(npc));
+        }
+        return tracked;
+    }
+
+    private static int[] allIndices(int count) {
+        int[] indices = new int[count];
+        for (int i = 0; i < count; i++) {
+            indices[i] = i;
+        }
+        return indices;
+    }
+
+    private static void assertMatchesPerspective(Client client, List<TrackedNpc> tracked, int[] x, int[] y) {
+        for (int i = 0; i < tracked.size(); i++) {
+            NPC npc = tracked.get(i).npc;
+            Point expected = Perspective.localToCanvas(client, npc.getLocalLocation(), 0, npc.getLogicalHeight() + Z_OFFSET);
+            if (expected == null) {
+                assertEquals("NPC " + i + " should be off screen", ProjectionEngine.OFFSCREEN, x[i]);
+                continue;
+            }
+            assertEquals("x of NPC " + i, expected.getX(), x[i]);
+            assertEquals("y of NPC " + i, expected.getY(), y[i]);
+        }
+    }
+
+    @Test
+    public void testMatchesPerspectiveFromSeveralCameras() {
+        FakeClient fake = new FakeClient().populate(400);
+        Client client = fake.getClient();
+        List<TrackedNpc> tracked = track(fake);
+        int[] indices = allIndices(tracked.size());
+        int[] x = new int[tracked.size()];
+        int[] y = new int[tracked.size()];
+        ProjectionEngine engine = new ProjectionEngine();
+
+        int centre = FakeClient.SCENE_SIZE / 2 * 128;
+        int[][] cameras = {
+            {centre, centre - 1800, -1400, 300, 0},
+            {centre + 900, centre + 600, -900, 128, 700},
+            {centre - 300, centre, -2400, 383, 1536},
+            // Among the NPCs, so some are behind the camera
+            {centre, centre, -600, 150, 1024},
+        };
+        for (int[] camera : cameras) {
+            fake.camera(camera[0], camera[1], camera[2], camera[3], camera[4]);
+            assertTrue(engine.beginFrame(client));
+            engine.project(client, tracked, indices, tracked.size(), 0, Z_OFFSET, x, y);
+            assertMatchesPerspective(client, tracked, x, y);
+        }
+    }
+
+    @Test
+    public void testUsesTheFloatingPointCamera() {
+        FakeClient fake = new FakeClient().populate(400);
+        Client client = fake.getClient();
+        List<TrackedNpc> tracked = track(fake);
+        int[] indices = allIndices(tracked.size());
+        int[] x = new int[tracked.size()];
+        int[] y = new int[tracked.size()];
+        ProjectionEngine engine = new ProjectionEngine();
+
+        // Mid-move, the integer camera lags the floating point one by up to a unit and an angle step
+        double centre = FakeClient.SCENE_SIZE / 2 * 128;
+        fake.camera(centre + 0.75, centre - 1799.6, -1400.4, 0.9213, 0.0029);
+        engine.beginFrame(client);
+        engine.project(client, tracked, indices, tracked.size(), 0, Z_OFFSET, x, y);
+        assertMatchesPerspective(client, tracked, x, y);
+
+        // A fractional move alone is a camera change
+        fake.camera(centre + 0.25, centre - 1799.6, -1400.4, 0.9213, 0.0029);
+        assertTrue(engine.beginFrame(client));
+        engine.project(client, tracked, indices, tracked.size(), 0, Z_OFFSET, x, y);
+        assertMatchesPerspective(client, tracked, x, y);
+
+        fake.camera(centre - 311.5, centre + 20.125, -2390.9, 1.1701, 4.7132);
+        engine.beginFrame(client);
+        engine.project(client, tracked, indices, tracked.size(), 0, Z_OFFSET, x, y);
+        assertMatchesPerspective(client, tracked, x, y);
+    }
+
+    @Test
+    public void testReusesProjectionsWhileCameraIsStill() {
+        FakeClient fake = new FakeClient().populate(50);
+        Client client = fake.getClient();
+        List<TrackedNpc> tracked = track(fake);
+        int[] indices = allIndices(tracked.size());
+        int[] x = new int[tracked.size()];
+        int[] y = new int[tracked.size()];
+        ProjectionEngine engine = new ProjectionEngine();
+
+        engine.beginFrame(client);
+        engine.project(client, tracked, indices, tracked.size(), 0, Z_OFFSET, x, y);
+        assertEquals(50, engine.getProjected());
+
+        assertFalse("Camera has not moved", engine.beginFrame(client));
+        engine.project(client, tracked, indices, tracked.size(), 0, Z_OFFSET, x, y);
+        assertEquals(50, engine.getProjected());
+        assertEquals(50, engine.getReused());
+        assertMatchesPerspective(client, tracked, x, y);
+
+        fake.camera(FakeClient.SCENE_SIZE / 2 * 128, FakeClient.SCENE_SIZE / 2 * 128 - 1800, -1400, 300, 64);
+        assertTrue(engine.beginFrame(client));
+        engine.project(client, tracked, indices, tracked.size(), 0, Z_OFFSET, x, y);
+        assertEquals("A camera move re-projects everything", 100, engine.getProjected());
+        assertMatchesPerspective(client, tracked, x, y);
+
+        engine.invalidate();
+        engine.beginFrame(client);
+        engine.project(client, tracked, indices, 10, 0, Z_OFFSET, x, y);
+        assertEquals(110, engine.getProjected());
+    }
+}
@@ -0,0 +1,40 @@
+package com.dexhonsa;
+
+import org.junit.Test;
+import java.awt.Color;
+import java.util.HashMap;
+import java.util.Map;
+import static org.junit.Assert.*;
+
+public class RenderSettingsTest {
+
+    @Test
+    public void testDefaultLevelColours() {
+        RenderSettings settings = RenderSettings.of(FakeClient.config());
+        assertEquals(new Color(0x00FF00), settings.levelColour(-50));
+        assertEquals(new Color(0x00FF00), settings.levelColour(-1));
+        assertEquals(new Color(0xFFFF00), settings.levelColour(0));
+        assertEquals(new Color(0xFF981F), settings.levelColour(1));
+        assertEquals(new Color(0xFF981F), settings.levelColour(3));
+        assertEquals(new Color(0xFF0000), settings.levelColour(4));
+        assertEquals(new Color(0xFF0000), settings.levelColour(1500));
+    }
+
+    @Test
+    public void testCustomColoursAndSnapshot() {
+        Map<String, Object> overrides = new HashMap<>();
+        overrides.put("textColorGreen", Color.BLUE);
+        overrides.put("textColorRed", Color.MAGENTA);
+        overrides.put("maxDrawDistance", 10);
+        overrides.put("showName", true);
+        RenderSettings settings = RenderSettings.of(FakeClient.config(overrides));
+
+        assertEquals(Color.BLUE, settings.levelColour(-3));
+        assertEquals(Color.MAGENTA, settings.levelColour(20));
+        assertEquals(10 * 128, settings.maxDistance);
+        assertTrue(settings.showName);
+
+        overrides.put("maxDrawDistance", 0);
+        assertEquals(Integer.MAX_VALUE, RenderSettings.of(FakeClient.config(overrides)).maxDistance);
+    }
+}